@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.annotation.XmlType;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,20 +76,36 @@ public class BeanImpl implements Bean {
      */
     private final Map<PropertyPath, String> comments = new HashMap<>();
 
+    /**
+     * Navigation cursor: the route last navigated, and the hosts along it.
+     * <p>
+     * NVPs are naturally ordered, so consecutive paths share long prefixes, and navigation resumes from the
+     * longest prefix shared with the cursor. cursorHosts[0] is the underlying object and cursorHosts[step + 1] the
+     * value followed at step, for the first cursorDepth steps of cursorRoute.
+     * <p>
+     * The cursor never extends to the final property of the route, which is the only property replaced by
+     * setPathValue (or extended by setPathValueClassName). Replacing a value along a prefix therefore makes it
+     * the final property of the current route, which truncates the cursor before it.
+     */
+    private PathPlan.Route cursorRoute;
+    private Object[] cursorHosts = new Object[8];
+    private int cursorDepth = 0;
+
     /**
      * Construct a BeanImpl
      */
     public BeanImpl(Object underlying) {
         this.underlying = underlying;
+        this.cursorHosts[0] = underlying;
     }
 
     public NVP<?> getPathValue(String path)
             throws PropertyException {
-        PropertyPath route = new PropertyPath(path);
+        PathPlan.Route route = PathPlan.route(this.underlying.getClass(), path);
 
         Object host = getHost(route);
 
-        Object value = getValue(host, route.getName(route.lastStep()));
+        Object value = route.getProperty(route.lastStep()).getValue(host);
 
         return new NVP<>(route.toString(), value);
     }
@@ -96,11 +113,11 @@ public class BeanImpl implements Bean {
     @SuppressWarnings("unchecked")
     public <T> NVP<T> getPathValue(String path, Class<T> clazz)
             throws PropertyException {
-        PropertyPath route = new PropertyPath(path);
+        PathPlan.Route route = PathPlan.route(this.underlying.getClass(), path);
 
         Object host = getHost(route);
 
-        Object value = getValue(host, route.getName(route.lastStep()));
+        Object value = route.getProperty(route.lastStep()).getValue(host);
 
         if (value != null && !clazz.isAssignableFrom(value.getClass())) {
             // Attempt a type conversion
@@ -119,11 +136,11 @@ public class BeanImpl implements Bean {
 
     public NVP<?> setPathValue(String path, Object value)
             throws PropertyException {
-        PropertyPath route = new PropertyPath(path);
+        PathPlan.Route route = PathPlan.route(this.underlying.getClass(), path);
 
         Object host = getHost(route);
 
-        Object convertedValue = setValue(host, route.getName(route.lastStep()), value);
+        Object convertedValue = setValue(host, route.getProperty(route.lastStep()), value);
 
         return new NVP<>(route.toString(), convertedValue);
     }
@@ -141,16 +158,14 @@ public class BeanImpl implements Bean {
     public NVP<Class> setPathValueClassName(String path, String className)
             throws PropertyException {
         // Remove the CLASS_SUFFIX_S before following the route
-        PropertyPath route = new PropertyPath(path.replace(CLASS_SUFFIX_S, ""));
+        PathPlan.Route route = PathPlan.route(this.underlying.getClass(), path.replace(CLASS_SUFFIX_S, ""));
 
-        Object host = getHost(route);
-
-        Property prop = getProperty(host.getClass(), route.getName(route.lastStep()));
+        getHost(route);
 
         // Set the extension
         Class clazz = ClassUtil.getClassElseNull(className);
         if (clazz != null) {
-            this.extensionClassMap.put(route, clazz);
+            this.extensionClassMap.put(route.toPropertyPath(), clazz);
             return new NVP<>(route.toString() + CLASS_SUFFIX_S, clazz);
         } else {
             return null;
@@ -191,14 +206,14 @@ public class BeanImpl implements Bean {
     public NVP<String> setPathComment(String path, String comment)
             throws PropertyException {
         // Validate path correctness and capitalization
-        PropertyPath route = new PropertyPath(path.replace(COMMENT_SUFFIX_S, ""));
+        PathPlan.Route route = PathPlan.route(this.underlying.getClass(), path.replace(COMMENT_SUFFIX_S, ""));
 
-        Object host = getHost(route);
+        getHost(route);
 
         // Add comment to map (sans COMMENT_SUFFIX_S)
-        getPathComments().put(route, comment);
+        getPathComments().put(route.toPropertyPath(), comment);
 
-        return new NVP<>(route.getPath() + COMMENT_SUFFIX_S, comment);
+        return new NVP<>(route.toString() + COMMENT_SUFFIX_S, comment);
     }
 
     public Map<PropertyPath, String> getPathComments() {
@@ -242,34 +257,77 @@ public class BeanImpl implements Bean {
     /**
      * Return the parent object (host) of the final property in the path
      *
-     * @param path route to the property
+     * @param route route to the property, into which the Property of each step is recorded
      * @return the host of the final property
      * @throws PropertyException if problems navigating the path to the host
      */
-    private Object getHost(PropertyPath path)
+    private Object getHost(PathPlan.Route route)
             throws PropertyException {
-        Object host = this.underlying;
+        PathPlan plan = route.getPlan();
 
-        int step = 0;
-        for (; step <= path.lastStep(); step++) {
-            // Overwrite the PropertyPath name/xmlName with the names registered in the Property
-            Property prop = getProperty(host.getClass(), path.getName(step));
-            String propertyName = prop.getName();
-            path.setName(step, propertyName);
-            path.setXmlName(step, prop.getXmlName());
-
-            if (step < path.lastStep()) {
+        // Resume from the longest prefix shared with the cursor, which then follows this route
+        int step = getSharedSteps(route);
+        for (int shared = 0; shared < step; shared++) {
+            route.setProperty(shared, this.cursorRoute.getProperty(shared));
+        }
+        Object host = this.cursorHosts[step];
+        this.cursorRoute = route;
+        this.cursorDepth = step;
+        if (this.cursorHosts.length <= route.lastStep()) {
+            this.cursorHosts = Arrays.copyOf(this.cursorHosts, route.lastStep() + 1);
+        }
+
+        for (; step <= route.lastStep(); step++) {
+            // Use the Property planned for this class of host, otherwise look it up and plan it
+            Class hostClass = host.getClass();
+            Property prop = plan.getProperty(step, hostClass);
+            if (prop == null) {
+                prop = getProperty(hostClass, plan.getName(step));
+                plan.bind(step, hostClass, prop);
+            }
+            route.setProperty(step, prop);
+
+            if (step < route.lastStep()) {
                 // If not on the last step, then follow the named property
-                host = follow(host, path, step);
+                host = follow(host, route, step);
+                this.cursorHosts[step + 1] = host;
+                this.cursorDepth = step + 1;
             }
         }
 
         return host;
     }
 
-    private Object getValue(Object host, String propertyName)
-            throws PropertyException {
-        return getProperty(host.getClass(), propertyName).getValue(host);
+    /**
+     * @return the number of leading steps the route follows (i.e., excluding its final step) in common with
+     * the cursor
+     */
+    private int getSharedSteps(PathPlan.Route route) {
+        if (this.cursorRoute == null) {
+            return 0;
+        }
+        PathPlan plan = route.getPlan();
+        boolean samePlan = (plan == this.cursorRoute.getPlan());
+        int limit = Math.min(this.cursorDepth, route.lastStep());
+
+        int step = 0;
+        while (step < limit && route.getIndex(step) == this.cursorRoute.getIndex(step) &&
+                (samePlan || plan.getName(step).equalsIgnoreCase(this.cursorRoute.getName(step)))) {
+            step++;
+        }
+        return step;
+    }
+
+    /**
+     * Truncate the cursor before the given host, whose properties are about to be replaced
+     */
+    private void truncateCursor(Object host) {
+        for (int step = 0; step < this.cursorDepth; step++) {
+            if (this.cursorHosts[step] == host) {
+                this.cursorDepth = step;
+                return;
+            }
+        }
     }
 
     /**
@@ -280,10 +338,17 @@ public class BeanImpl implements Bean {
      * @param value        value to set
      * @throws PropertyException if problems navigating the path to the host
      */
-    @SuppressWarnings({"unchecked"})
     public Object setValue(Object host, String propertyName, Object value)
             throws PropertyException {
-        Property prop = getProperty(host.getClass(), propertyName);
+        // The host may be anywhere along the cursor
+        truncateCursor(host);
+        return setValue(host, getProperty(host.getClass(), propertyName), value);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Object setValue(Object host, Property prop, Object value)
+            throws PropertyException {
+        String propertyName = prop.getName();
 
         // Check if value needs to be converted prior to calling setValue
         if (value != null) {
@@ -318,42 +383,47 @@ public class BeanImpl implements Bean {
      * <p>
      * You cannot follow enum/primitive types as they are immutable.
      *
-     * @param host   object to invoke the getter on
-     * @param target the property to get or create
-     * @param step   the property index
+     * @param host  object to invoke the getter on
+     * @param route the route to the property to get or create
+     * @param step  the property index
      * @return the existing or new empty value for the property
      * @throws PropertyException if problems encountered
      */
-    private Object follow(Object host, PropertyPath target, int step)
+    private Object follow(Object host, PathPlan.Route route, int step)
             throws PropertyException {
-        PropertyPath path = target.subPath(step);
-        PropertyPath pathSansLastIndex = path.cloneOf().setIndex(step, QualifiedPath.NO_INDEX);
-        String propertyName = target.getName(step);
-        int index = target.getIndex(step);
-        Property prop = getProperty(host.getClass(), propertyName);
+        Property prop = route.getProperty(step);
+        int index = route.getIndex(step);
 
-        Common.fatalAssertion(prop != null, LOG, "Cannot find property {}", propertyName);
+        Common.fatalAssertion(prop != null, LOG, "Cannot find property {}", route.getName(step));
+        String propertyName = prop.getName();
 
         // Get the current value of the property.
         // Note that Property#getValue checks that getters returning List<T> return a non-null value
         // i.e., follow() is not expected to create instances of generic values
-        Object value = getValue(host, propertyName);
-
-        // Determine if the property value class of this bean has been extended
-        // First check whether this specific index has been extended
-        assert prop != null;
-        Class extClass = this.extensionClassMap.get(path);
-        if (extClass == null) {
-            // Otherwise check whether this property as a whole has been extended
-            extClass = this.extensionClassMap.get(pathSansLastIndex);
-        }
+        Object value = prop.getValue(host);
+
+        // Extensions are keyed by PropertyPath, so only build the paths when there are extensions to look up
+        Class extClass = null;
+        String extFactory = null;
+        if (!this.extensionClassMap.isEmpty() || !this.extensionFactoryMap.isEmpty()) {
+            PropertyPath path = route.toPropertyPath(step);
+            PropertyPath pathSansLastIndex = path.cloneOf().setIndex(step, QualifiedPath.NO_INDEX);
+
+            // Determine if the property value class of this bean has been extended
+            // First check whether this specific index has been extended
+            extClass = this.extensionClassMap.get(path);
+            if (extClass == null) {
+                // Otherwise check whether this property as a whole has been extended
+                extClass = this.extensionClassMap.get(pathSansLastIndex);
+            }
 
-        // Determine if the property value factory method has been extended
-        // First check whether this specific index has been extended
-        String extFactory = this.extensionFactoryMap.get(path);
-        if (extFactory == null) {
-            // Otherwise check whether this property as a whole has been extended
-            extFactory = this.extensionFactoryMap.get(pathSansLastIndex);
+            // Determine if the property value factory method has been extended
+            // First check whether this specific index has been extended
+            extFactory = this.extensionFactoryMap.get(path);
+            if (extFactory == null) {
+                // Otherwise check whether this property as a whole has been extended
+                extFactory = this.extensionFactoryMap.get(pathSansLastIndex);
+            }
         }
 
         // If there is no existing value, create an empty value using the default or extended value class
@@ -368,7 +438,7 @@ public class BeanImpl implements Bean {
                 value = prop.emptyValue(valueClazz, extFactory);
             }
             // Set the empty value into the bean
-            setValue(host, propertyName, value);
+            setValue(host, prop, value);
         } else {
             // Handle case where the existing value is a list
             if (value instanceof List<?>) {
@@ -393,21 +463,23 @@ public class BeanImpl implements Bean {
 
         // Handle case where a type or element substitution has occurred
         if (value != null) {
-            checkSubstitution(target, step, prop, index, value);
+            checkSubstitution(route, step, prop, index, value);
         }
 
         return value;
     }
 
-    private void checkSubstitution(PropertyPath path, int step, Property prop, int index, Object value) {
+    private void checkSubstitution(PathPlan.Route route, int step, Property prop, int index, Object value) {
         if (value instanceof JAXBElement) {
-            substitutionLog.recordElementSubstitution(path, step, prop, index, (JAXBElement) value);
+            substitutionLog.recordElementSubstitution(route.toPropertyPath(), step, prop, index,
+                    (JAXBElement) value);
         } else if (value.getClass().isAnnotationPresent(XmlType.class)) {
             boolean noSubstitution = value.getClass().equals(prop.getValueClass()) ||
                     value.getClass().equals(prop.getValueParameterClass());
             // Ignore HREFs as we do not expect them to be commented
             if (!noSubstitution && !"href".equalsIgnoreCase(prop.getName())) {
-                substitutionLog.recordTypeSubstitution(path, step, prop, index, value.getClass());
+                substitutionLog.recordTypeSubstitution(route.toPropertyPath(), step, prop, index,
+                        value.getClass());
             }
         }
     }
@@ -32,7 +32,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
-import java.util.Objects;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Registry of converter classes that can convert a value object to one type to another
@@ -48,8 +52,19 @@ public class ConverterRegistry {
         getInstance().registerAll();
     }
 
+    /**
+     * Marks a class pair without a converter (as ConcurrentHashMap does not permit null values)
+     */
+    private static final Object NO_CONVERTER = new Object();
+
     public final HashMap<String, Converter> converters;
 
+    /**
+     * The converter resolved for each fromClass and toClass, including the fallbacks (or NO_CONVERTER).
+     * Replaced whenever a converter is registered.
+     */
+    private volatile ClassValue<ConcurrentMap<Class, Object>> resolved = newResolvedCache();
+
     public ConverterRegistry() {
         this.converters = new HashMap<>();
     }
@@ -65,24 +80,62 @@ public class ConverterRegistry {
     public ConverterRegistry register(Converter converter) {
         String name = converter.key();
         this.converters.put(name, converter);
+        this.resolved = newResolvedCache();
         return this;
     }
 
+    /**
+     * Register every Converter listed in META-INF/services/org.grizzlytech.protoxml.beans.Converter, including
+     * those provided by other jars
+     */
     public void registerAll() {
-        ClassUtil.getImplementations("org.grizzlytech.protoxml.beans.converters",
-                x -> x.endsWith("Converter"),
-                Converter.class
-        ).stream()
-                .map(x -> (Converter) ClassUtil.newInstanceElseNull(x))
-                .filter(Objects::nonNull)
-                .forEach(this::register);
+        registerAll(ConverterRegistry.class.getClassLoader());
+    }
+
+    void registerAll(ClassLoader classLoader) {
+        Iterator<Converter> iterator = ServiceLoader.load(Converter.class, classLoader).iterator();
+        boolean hasNext = true;
+        while (hasNext) {
+            // Stop should hasNext itself fail (e.g., a malformed services file), as it may fail on every call
+            hasNext = false;
+            try {
+                hasNext = iterator.hasNext();
+                if (hasNext) {
+                    register(iterator.next());
+                }
+            } catch (ServiceConfigurationError ex) {
+                LOG.error("Unable to load Converter", ex);
+            }
+        }
     }
 
     public Converter findConverter(String key) {
         return this.converters.get(key);
     }
 
+    /**
+     * Find the converter for the class pair, including the fallbacks for unboxing, toString etc.
+     * The result (even if there is no converter) is cached, so later lookups neither allocate nor lock.
+     *
+     * @param fromClass class of the value
+     * @param toClass   class required
+     * @return the converter, else null
+     */
     public Converter findConverter(Class fromClass, Class toClass) {
+        if (fromClass == null || toClass == null) {
+            return resolveConverter(fromClass, toClass);
+        }
+
+        ConcurrentMap<Class, Object> byToClass = resolved.get(fromClass);
+        Object converter = byToClass.get(toClass);
+        if (converter == null) {
+            converter = resolveConverter(fromClass, toClass);
+            byToClass.putIfAbsent(toClass, (converter != null) ? converter : NO_CONVERTER);
+        }
+        return (converter != NO_CONVERTER) ? (Converter) converter : null;
+    }
+
+    private Converter resolveConverter(Class fromClass, Class toClass) {
         String key = toKey(fromClass, toClass);
 
         // Check regular x-to-y converters
@@ -150,6 +203,15 @@ public class ConverterRegistry {
         return builder.toString();
     }
 
+    private static ClassValue<ConcurrentMap<Class, Object>> newResolvedCache() {
+        return new ClassValue<ConcurrentMap<Class, Object>>() {
+            @Override
+            protected ConcurrentMap<Class, Object> computeValue(Class<?> fromClass) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    }
+
     // java.lang.Double-to-double
     // java.lang.Integer-to-int
     private boolean isUnboxing(Class from, Class to) {
@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.beans;
+
+
+import org.grizzlytech.protoxml.util.QualifiedPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled navigation of a path shape from a root class.
+ * <p>
+ * The shape of a path is the path sans index values (e.g., "phones[].localNumber"). Large documents repeat the
+ * same shapes many times over, so each shape is split into its steps once, and the Property used at each step is
+ * remembered against the class of the host seen at that step. A Route applies a plan to the indices of a
+ * concrete path.
+ * <p>
+ * Shapes come from the input (including misspellings and case variants), so at most MAX_PLANS are kept for each
+ * root class. When full, the plans are discarded, to be compiled afresh for the shapes still in use.
+ */
+class PathPlan {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PathPlan.class);
+
+    static final int MAX_PLANS = 1024;
+
+    /**
+     * Marks an indexed step within a shape
+     */
+    private static final String INDEXED = "[]";
+
+    /**
+     * Plans by shape, for each root class
+     */
+    private static final ClassValue<ConcurrentMap<String, PathPlan>> PLANS =
+            new ClassValue<ConcurrentMap<String, PathPlan>>() {
+                @Override
+                protected ConcurrentMap<String, PathPlan> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final String shape;
+
+    /**
+     * the component names of the path, as provided
+     */
+    private final String[] names;
+
+    /**
+     * Property resolved for each step. Bindings are immutable, so may be replaced without locking.
+     */
+    private final Binding[] bindings;
+
+    private PathPlan(String shape, String[] names) {
+        this.shape = shape;
+        this.names = names;
+        this.bindings = new Binding[names.length];
+    }
+
+    /**
+     * Split the path into its shape and indices, and return a Route following the plan for that shape
+     *
+     * @param rootClass class of the object at the start of the path
+     * @param path      path to parse, e.g. "phones[0].localNumber"
+     * @return the Route
+     * @throws PropertyException if the path has no steps
+     */
+    static Route route(Class rootClass, String path)
+            throws PropertyException {
+        // Count the steps, ignoring trailing delimiters (as per String#split)
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == PropertyPath.PATH_DELIMITER) {
+            end--;
+        }
+        if (end == 0 && !path.isEmpty()) {
+            throw new PropertyException("Path has no steps", path);
+        }
+        int length = 1;
+        for (int i = 0; i < end; i++) {
+            if (path.charAt(i) == PropertyPath.PATH_DELIMITER) {
+                length++;
+            }
+        }
+
+        // Extract the indices, and build the shape from the path sans index values
+        int[] indices = new int[length];
+        StringBuilder shape = new StringBuilder(end);
+        int begin = 0;
+        for (int step = 0; step < length; step++) {
+            int delimiter = path.indexOf(PropertyPath.PATH_DELIMITER, begin);
+            int segmentEnd = (delimiter >= 0 && delimiter < end) ? delimiter : end;
+            int LB = indexOf(path, QualifiedPath.CH_LB, begin, segmentEnd);
+            int RB = (LB >= 0) ? indexOf(path, QualifiedPath.CH_RB, LB, segmentEnd) : -1;
+            if (step > 0) {
+                shape.append(PropertyPath.PATH_DELIMITER);
+            }
+            if (RB > LB) {
+                indices[step] = Integer.parseInt(path.substring(LB + 1, RB));
+                shape.append(path, begin, LB).append(INDEXED);
+            } else {
+                indices[step] = QualifiedPath.NO_INDEX;
+                shape.append(path, begin, segmentEnd);
+            }
+            begin = segmentEnd + 1;
+        }
+
+        // Try get before computeIfAbsent, which locks even when the shape is present (JDK 8)
+        ConcurrentMap<String, PathPlan> plans = PLANS.get(rootClass);
+        String key = shape.toString();
+        PathPlan plan = plans.get(key);
+        if (plan == null) {
+            if (plans.size() >= MAX_PLANS) {
+                LOG.debug("Discarding the {} plans for {}", plans.size(), rootClass.getName());
+                plans.clear();
+            }
+            plan = plans.computeIfAbsent(key, PathPlan::compile);
+        }
+        return new Route(plan, indices);
+    }
+
+    private static int indexOf(String text, char ch, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if (text.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static PathPlan compile(String shape) {
+        String[] names = shape.split(PropertyPath.PATH_REGEX, -1);
+        for (int step = 0; step < names.length; step++) {
+            if (names[step].endsWith(INDEXED)) {
+                names[step] = names[step].substring(0, names[step].length() - INDEXED.length());
+            }
+        }
+        return new PathPlan(shape, names);
+    }
+
+    /**
+     * @return the number of shapes planned for the root class
+     */
+    static int size(Class rootClass) {
+        return PLANS.get(rootClass).size();
+    }
+
+    int length() {
+        return names.length;
+    }
+
+    String getName(int step) {
+        return names[step];
+    }
+
+    /**
+     * @return the Property bound to the step for the given host class, or null if not (yet) bound
+     */
+    Property getProperty(int step, Class hostClass) {
+        Binding binding = bindings[step];
+        return (binding != null && binding.hostClass == hostClass) ? binding.property : null;
+    }
+
+    void bind(int step, Class hostClass, Property property) {
+        bindings[step] = new Binding(hostClass, property);
+    }
+
+    @Override
+    public String toString() {
+        return shape;
+    }
+
+    private static class Binding {
+        private final Class hostClass;
+        private final Property property;
+
+        Binding(Class hostClass, Property property) {
+            this.hostClass = hostClass;
+            this.property = property;
+        }
+    }
+
+    /**
+     * A PathPlan applied to the indices of a concrete path, recording the Property resolved at each step
+     */
+    static class Route {
+        private final PathPlan plan;
+        private final int[] indices;
+        private final Property[] properties;
+
+        Route(PathPlan plan, int[] indices) {
+            this.plan = plan;
+            this.indices = indices;
+            this.properties = new Property[indices.length];
+        }
+
+        PathPlan getPlan() {
+            return plan;
+        }
+
+        int lastStep() {
+            return indices.length - 1;
+        }
+
+        /**
+         * @return the registered property name if the step has been resolved, otherwise the name provided
+         */
+        String getName(int step) {
+            return (properties[step] != null) ? properties[step].getName() : plan.getName(step);
+        }
+
+        int getIndex(int step) {
+            return indices[step];
+        }
+
+        Property getProperty(int step) {
+            return properties[step];
+        }
+
+        void setProperty(int step, Property property) {
+            properties[step] = property;
+        }
+
+        /**
+         * @return the whole route as a PropertyPath
+         */
+        PropertyPath toPropertyPath() {
+            return toPropertyPath(lastStep());
+        }
+
+        /**
+         * @param endStep last step to include
+         * @return the route up to (and including) endStep as a PropertyPath, including the xml names resolved
+         */
+        PropertyPath toPropertyPath(int endStep) {
+            PropertyPath path = new PropertyPath();
+            path.allocate(endStep + 1);
+            for (int step = 0; step <= endStep; step++) {
+                path.setName(step, getName(step));
+                path.setIndex(step, indices[step]);
+                path.setXmlName(step, (properties[step] != null) ? properties[step].getXmlName() : null);
+            }
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int step = 0; step <= lastStep(); step++) {
+                if (step > 0) {
+                    builder.append(PropertyPath.PATH_DELIMITER);
+                }
+                builder.append(getName(step));
+                if (indices[step] != QualifiedPath.NO_INDEX) {
+                    builder.append(QualifiedPath.CH_LB).append(indices[step]).append(QualifiedPath.CH_RB);
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
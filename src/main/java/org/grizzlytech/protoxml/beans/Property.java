@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.annotation.*;
+import java.lang.invoke.*;
 import java.lang.reflect.*;
 import java.util.Collection;
 
@@ -39,11 +40,19 @@ import java.util.Collection;
  * Encapsulates a Java BeanImpl property
  * Used to dynamically get and set properties
  * Has support for generics, where a property is a collection
+ * <p>
+ * The getter and setter are bound on first use into a Reader and Writer: LambdaMetafactory generated where the
+ * accessor is public and visible to this class loader, otherwise a MethodHandle. Where there is no getter (or
+ * setter) the Field is accessed directly.
  */
 public class Property implements Comparable<Property> {
 
     private static final Logger LOG = LoggerFactory.getLogger(Property.class);
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
     /**
      * name (sans "get"/"is" or "set") of the Java property
      */
@@ -53,6 +62,12 @@ public class Property implements Comparable<Property> {
     private Method getter=null;
     private Method setter=null;
 
+    /**
+     * Getter and setter bound on first use (null until then)
+     */
+    private volatile Reader reader;
+    private volatile Writer writer;
+
     /**
      * Class of the property value.
      * <p>
@@ -133,6 +148,7 @@ public class Property implements Comparable<Property> {
 
     public void setField(Field field) {
         this.field = field;
+        unbind();
     }
 
     Method getGetter() {
@@ -141,6 +157,7 @@ public class Property implements Comparable<Property> {
 
     void setGetter(Method getter) {
         this.getter = getter;
+        unbind();
     }
 
     Method getSetter() {
@@ -149,6 +166,7 @@ public class Property implements Comparable<Property> {
 
     void setSetter(Method setter) {
         this.setter = setter;
+        unbind();
     }
 
     public Class getValueClass() {
@@ -333,22 +351,25 @@ public class Property implements Comparable<Property> {
 
     public Object getValue(Object target) throws PropertyException {
         Object value;
-        if (this.getter == null) {
+        Reader reader = getReader();
+        if (reader == null) {
             throw new PropertyException("No getter defined", this.name);
         }
         try {
-            value = this.getter.invoke(target, (Object[]) null);
-
-            if (value == null && isCollection()) {
-                // We rely on the host being able to instantiate generics.
-                // The Bean#follow() method will fail otherwise.
-                String message = String.format(
-                        "The getter implementation [%s] returned null as opposed to the expected instance of [%s]",
-                        target.getClass().getCanonicalName() + "#" + this.getter.getName(), getValueTypeName());
-                throw new PropertyException(message, getName());
-            }
-        } catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException ex) {
-            throw new PropertyException("Cannot invoke getter: " + this.getter.getName(), this.name, ex);
+            value = reader.read(target);
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new PropertyException("Cannot invoke getter: " + getReaderName(), this.name, asException(ex));
+        }
+
+        if (value == null && isCollection()) {
+            // We rely on the host being able to instantiate generics.
+            // The Bean#follow() method will fail otherwise.
+            String message = String.format(
+                    "The getter implementation [%s] returned null as opposed to the expected instance of [%s]",
+                    target.getClass().getCanonicalName() + "#" + getReaderName(), getValueTypeName());
+            throw new PropertyException(message, getName());
         }
 
         return value;
@@ -366,20 +387,204 @@ public class Property implements Comparable<Property> {
 
     public void setValue(Object target, Object value)
             throws PropertyException {
-        if (this.setter == null) {
+        Writer writer = getWriter();
+        if (writer == null) {
             throw new PropertyException("No setter defined", this.name);
         }
 
         // Try to invoke the setter
         try {
-            this.setter.invoke(target, value);
-        } catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException ex) {
+            writer.write(target, value);
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
             String error = String.format("Cannot invoke setter %1s with value %2s on object %3s",
-                    this.setter.getName(), (value != null) ?
+                    getWriterName(), (value != null) ?
                             (value.getClass().getName() + ": " + value.
-                                    toString()) : "null", target.getClass().getName());
-            throw new PropertyException(error, this.getName(), ex);
+                                    toString()) : "null", (target != null) ? target.getClass().getName() : "null");
+            throw new PropertyException(error, this.getName(), asException(ex));
+        }
+    }
+
+    // Binding of the getter and setter
+
+    /**
+     * Reads the property value from a target object
+     */
+    @FunctionalInterface
+    interface Reader {
+        Object read(Object target) throws Throwable;
+    }
+
+    /**
+     * Writes the property value into a target object
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(Object target, Object value) throws Throwable;
+    }
+
+    private void unbind() {
+        this.reader = null;
+        this.writer = null;
+    }
+
+    private Reader getReader() throws PropertyException {
+        Reader bound = this.reader;
+        if (bound == null && (this.getter != null || this.field != null)) {
+            try {
+                bound = this.reader = bindReader();
+            } catch (IllegalAccessException | SecurityException ex) {
+                throw new PropertyException("Cannot access getter: " + getReaderName(), this.name, ex);
+            }
         }
+        return bound;
+    }
+
+    private Writer getWriter() throws PropertyException {
+        Writer bound = this.writer;
+        if (bound == null && (this.setter != null || this.field != null)) {
+            try {
+                bound = this.writer = bindWriter();
+            } catch (IllegalAccessException | SecurityException ex) {
+                throw new PropertyException("Cannot access setter: " + getWriterName(), this.name, ex);
+            }
+        }
+        return bound;
+    }
+
+    private String getReaderName() {
+        return (this.getter != null) ? this.getter.getName() : Common.safeToName(this.field);
+    }
+
+    private String getWriterName() {
+        return (this.setter != null) ? this.setter.getName() : Common.safeToName(this.field);
+    }
+
+    /**
+     * @return the Reader, or null if there is neither a getter nor a usable field
+     */
+    private Reader bindReader()
+            throws IllegalAccessException {
+        MethodHandle handle;
+        if (this.getter != null) {
+            if (isLinkable(this.getter)) {
+                MethodType instantiated = MethodType.methodType(
+                        MethodType.methodType(this.getter.getReturnType()).wrap().returnType(),
+                        this.getter.getDeclaringClass());
+                Reader lambda = (Reader) createLambda(Reader.class, "read", READER_TYPE, this.getter, instantiated);
+                if (lambda != null) {
+                    return lambda;
+                }
+            }
+            handle = unreflect(this.getter);
+        } else if (this.field != null && !Modifier.isStatic(this.field.getModifiers())) {
+            this.field.setAccessible(true);
+            handle = LOOKUP.unreflectGetter(this.field);
+        } else {
+            return null;
+        }
+        MethodHandle exact = handle.asType(READER_TYPE);
+        return target -> (Object) exact.invokeExact(target);
+    }
+
+    /**
+     * @return the Writer, or null if there is neither a setter nor a usable field. Collections are never
+     * replaced via their field, as JAXB omits their setters deliberately.
+     */
+    private Writer bindWriter()
+            throws IllegalAccessException {
+        MethodHandle handle;
+        if (this.setter != null) {
+            Class<?> type = this.setter.getParameterTypes()[0];
+            // Primitives are left to the MethodHandle, which (like reflection) widens the unboxed value
+            if (!type.isPrimitive() && isLinkable(this.setter)) {
+                MethodType instantiated = MethodType.methodType(void.class, this.setter.getDeclaringClass(), type);
+                Writer lambda = (Writer) createLambda(Writer.class, "write", WRITER_TYPE, this.setter, instantiated);
+                if (lambda != null) {
+                    return lambda;
+                }
+            }
+            handle = unreflect(this.setter);
+        } else if (this.field != null && !isCollection() &&
+                (this.field.getModifiers() & (Modifier.STATIC | Modifier.FINAL)) == 0) {
+            this.field.setAccessible(true);
+            handle = LOOKUP.unreflectSetter(this.field);
+        } else {
+            return null;
+        }
+        MethodHandle exact = handle.asType(WRITER_TYPE);
+        return (target, value) -> {
+            exact.invokeExact(target, value); // a statement, so that the call site type is void
+        };
+    }
+
+    /**
+     * Unreflect the accessor, ignoring the target for static methods
+     */
+    private static MethodHandle unreflect(Method method)
+            throws IllegalAccessException {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            // For example, a public method declared by a non-public class
+            method.setAccessible(true);
+            handle = LOOKUP.unreflect(method);
+        }
+        return Modifier.isStatic(method.getModifiers()) ?
+                MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    /**
+     * A generated lambda calls the accessor directly, so the accessor must be public, non-static, and the classes
+     * it references must resolve to the same classes from this class loader
+     */
+    private static boolean isLinkable(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers()) ||
+                !Modifier.isPublic(owner.getModifiers()) || !isVisible(owner) ||
+                !isVisible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!isVisible(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, Property.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return an instance of the functional interface calling the accessor, or null if one cannot be generated
+     */
+    private static Object createLambda(Class<?> interfaceClass, String methodName, MethodType samType,
+                                       Method accessor, MethodType instantiatedType) {
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, methodName,
+                    MethodType.methodType(interfaceClass), samType, LOOKUP.unreflect(accessor), instantiatedType);
+            return site.getTarget().invoke();
+        } catch (VirtualMachineError ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            LOG.debug("Using a MethodHandle for {}: {}", accessor, ex.toString());
+            return null;
+        }
+    }
+
+    private static Exception asException(Throwable ex) {
+        return (ex instanceof Exception) ? (Exception) ex : new UndeclaredThrowableException(ex);
     }
 
     // Getter and Setter for Beans holding the Value
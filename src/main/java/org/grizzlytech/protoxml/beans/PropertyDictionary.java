@@ -32,16 +32,33 @@ import org.slf4j.LoggerFactory;
 import javax.xml.bind.annotation.XmlType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
-// get, set and is
+/**
+ * Process-wide dictionary of the Properties (get, set and is) of each class.
+ * <p>
+ * Each class's properties are extracted once into an immutable PropertyTable, held by a ClassValue, so lookups
+ * neither lock nor allocate, and the table is discarded should the class be unloaded.
+ */
 public class PropertyDictionary {
 
     private static final Logger LOG = LoggerFactory.getLogger(PropertyDictionary.class);
 
     private static final PropertyDictionary instance = new PropertyDictionary();
-    private final HashMap<Class, Map<String, Property>> mappings = new HashMap<>();
+
+    private final ClassValue<PropertyTable> tables = new ClassValue<PropertyTable>() {
+        @Override
+        protected PropertyTable computeValue(Class<?> clazz) {
+            PropertyTable table = new PropertyTable(extractPropertyMap(clazz));
+            classes.put(clazz, Boolean.TRUE);
+            return table;
+        }
+    };
+
+    /**
+     * Classes mapped so far (for toString)
+     */
+    private final Map<Class, Boolean> classes = Collections.synchronizedMap(new WeakHashMap<>());
 
     public static PropertyDictionary getInstance() {
         return instance;
@@ -58,17 +75,17 @@ public class PropertyDictionary {
     }
 
     public Property getProperty(Class clazz, String propertyName) {
-        return getPropertyMap(clazz).get(toKey(propertyName));
+        return tables.get(clazz).get(propertyName);
     }
 
     /**
      * Build and cache the property map for a given class
      *
      * @param clazz the class for which a map is required
-     * @return the corresponding map
+     * @return the corresponding (unmodifiable) map
      */
     public Map<String, Property> getPropertyMap(Class clazz) {
-        return mappings.computeIfAbsent(clazz, this::extractPropertyMap);
+        return tables.get(clazz).getMap();
     }
 
     /**
@@ -182,7 +199,11 @@ public class PropertyDictionary {
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        for (Class clazz : this.mappings.keySet()) {
+        List<Class> mapped;
+        synchronized (this.classes) {
+            mapped = new ArrayList<>(this.classes.keySet());
+        }
+        for (Class clazz : mapped) {
             builder.append(PropertyDebugger.classToString(clazz));
         }
         return builder.toString();
@@ -125,16 +125,21 @@ public class PropertyPath extends QualifiedPath {
             if (step > 0) {
                 builder.append(pathDelimiter());
             }
-            builder.append(getName(step).toUpperCase()); // case insensitive
+            builder.append(getPathName(step).getFolded()); // case insensitive
             if (isIndexed(step)) {
                 builder.append(CH_LB);
-                builder.append(String.format("%03d", getIndex(step))); // pad 3 wide
+                appendPaddedIndex(builder, getIndex(step)); // pad 3 wide
                 builder.append(CH_RB);
             }
         }
         return builder.toString();
     }
 
+    @Override
+    protected boolean isCaseSensitive() {
+        return false;
+    }
+
     @Override
     public void copy(int step, QualifiedPath replacement, int replacementStep) {
         super.copy(step, replacement, replacementStep);
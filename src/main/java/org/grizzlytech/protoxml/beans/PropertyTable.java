@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.beans;
+
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable, case-insensitive table of the Properties of a class.
+ * <p>
+ * Lookups hash the requested name one (upper-cased) char at a time and probe an open-addressed table, so no key
+ * is allocated and no lock is taken.
+ */
+class PropertyTable {
+
+    private final Map<String, Property> map;
+
+    private final String[] names;
+    private final int[] hashes;
+    private final Property[] properties;
+    private final int mask;
+
+    /**
+     * @param map propertyKey to Property map (see PropertyDictionary#toKey), which must not be modified afterwards
+     */
+    PropertyTable(Map<String, Property> map) {
+        this.map = Collections.unmodifiableMap(map);
+
+        // Keep the load factor at or below 0.5, so that probe sequences remain short
+        int capacity = Integer.highestOneBit(Math.max(map.size(), 1) * 4 - 1);
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.properties = new Property[capacity];
+        this.mask = capacity - 1;
+
+        for (Property property : map.values()) {
+            String name = property.getName();
+            int hash = hash(name);
+            int index = hash & mask;
+            while (properties[index] != null) {
+                index = (index + 1) & mask;
+            }
+            names[index] = name;
+            hashes[index] = hash;
+            properties[index] = property;
+        }
+    }
+
+    /**
+     * @param name property name, in any case
+     * @return the Property, or null if not found
+     */
+    Property get(String name) {
+        int hash = hash(name);
+        for (int index = hash & mask; ; index = (index + 1) & mask) {
+            Property property = properties[index];
+            if (property == null) {
+                return null;
+            }
+            String candidate = names[index];
+            if (hashes[index] == hash && (candidate.equals(name) || (candidate.length() == name.length() &&
+                    candidate.regionMatches(true, 0, name, 0, name.length())))) {
+                return property;
+            }
+        }
+    }
+
+    /**
+     * @return unmodifiable propertyKey to Property map
+     */
+    Map<String, Property> getMap() {
+        return map;
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    /**
+     * Case-insensitive String hash, spread so that the low bits used as the table index are well mixed
+     */
+    static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c -= ('a' - 'A');
+            } else if (c >= 0x80) {
+                c = Character.toUpperCase(c);
+            }
+            hash = 31 * hash + c;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
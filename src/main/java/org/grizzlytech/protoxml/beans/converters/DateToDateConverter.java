@@ -27,6 +27,7 @@ package org.grizzlytech.protoxml.beans.converters;
 import org.grizzlytech.protoxml.beans.Converter;
 import org.grizzlytech.protoxml.beans.ConverterRegistry;
 import org.grizzlytech.protoxml.util.Common;
+import org.grizzlytech.protoxml.util.FatalException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,9 +37,8 @@ import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 import java.time.*;
 import java.time.temporal.Temporal;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.*;
+import java.util.function.BiFunction;
 
 /**
  * Enable data type conversions between containers
@@ -48,19 +48,82 @@ import java.util.GregorianCalendar;
 public class DateToDateConverter implements Converter {
     private static final Logger LOG = LoggerFactory.getLogger(DateToDateConverter.class);
 
+    private static final int NANOS_PER_MILLI = 1_000_000;
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private static final Class[] DATE_CLASSES = {XMLGregorianCalendar.class, LocalDate.class, LocalDateTime.class,
+            OffsetDateTime.class, Instant.class,
+            Temporal.class, Calendar.class, Date.class};
+
+    /**
+     * The date class (one of DATE_CLASSES) of each class, else Object.class for non-date classes
+     */
+    private static final ClassValue<Class> DATE_CLASS = new ClassValue<Class>() {
+        @Override
+        protected Class computeValue(Class<?> candidate) {
+            for (Class clazz : DATE_CLASSES) {
+                //noinspection unchecked
+                if (clazz.isAssignableFrom(candidate)) return clazz;
+            }
+            return Object.class;
+        }
+    };
+
+    /**
+     * Supported conversions, by from date class and then by to date class
+     */
+    private static final Map<Class, Map<Class, BiFunction<DateToDateConverter, Object, Object>>> CONVERSIONS =
+            new HashMap<>();
+
+    /**
+     * DatatypeFactory.newInstance performs a service lookup on every call, and DatatypeFactory is not
+     * guaranteed to be thread safe, so each thread creates one
+     */
+    private static final ThreadLocal<DatatypeFactory> DATATYPE_FACTORIES = ThreadLocal.withInitial(() -> {
+        try {
+            return DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException ex) {
+            throw new FatalException("Cannot create DatatypeFactory", ex);
+        }
+    });
+
+    static {
+        addConversion(LocalDate.class, XMLGregorianCalendar.class, (c, v) -> c.toXMLGregorianCalendar((LocalDate) v));
+        addConversion(LocalDateTime.class, XMLGregorianCalendar.class,
+                (c, v) -> c.toXMLGregorianCalendar((LocalDateTime) v));
+        addConversion(OffsetDateTime.class, XMLGregorianCalendar.class,
+                (c, v) -> c.toXMLGregorianCalendar((OffsetDateTime) v));
+        addConversion(Instant.class, XMLGregorianCalendar.class, (c, v) -> c.toXMLGregorianCalendar((Instant) v));
+
+        addConversion(XMLGregorianCalendar.class, LocalDate.class,
+                (c, v) -> ((XMLGregorianCalendar) v).toGregorianCalendar().toZonedDateTime().toLocalDate());
+        addConversion(XMLGregorianCalendar.class, LocalDateTime.class,
+                (c, v) -> ((XMLGregorianCalendar) v).toGregorianCalendar().toZonedDateTime().toLocalDateTime());
+        addConversion(XMLGregorianCalendar.class, OffsetDateTime.class,
+                (c, v) -> ((XMLGregorianCalendar) v).toGregorianCalendar().toZonedDateTime().toOffsetDateTime());
+        addConversion(XMLGregorianCalendar.class, Instant.class,
+                (c, v) -> ((XMLGregorianCalendar) v).toGregorianCalendar().toZonedDateTime().toInstant());
+    }
+
+    private static void addConversion(Class fromClass, Class toClass,
+                                      BiFunction<DateToDateConverter, Object, Object> conversion) {
+        CONVERSIONS.computeIfAbsent(fromClass, k -> new HashMap<>()).put(toClass, conversion);
+    }
+
     public static boolean isDateClass(Class candidate) {
         return getDateClass(candidate) != null;
     }
 
     public static Class getDateClass(Class candidate) {
-        final Class[] DATE_CLASSES = {XMLGregorianCalendar.class, LocalDate.class, LocalDateTime.class,
-                OffsetDateTime.class, Instant.class,
-                Temporal.class, Calendar.class, Date.class};
-        for (Class clazz : DATE_CLASSES) {
-            //noinspection unchecked
-            if (clazz.isAssignableFrom(candidate)) return clazz;
-        }
-        return null;
+        Class dateClass = DATE_CLASS.get(candidate);
+        return (dateClass != Object.class) ? dateClass : null;
+    }
+
+    /**
+     * @return this thread's DatatypeFactory
+     */
+    public static DatatypeFactory getDatatypeFactory() {
+        return DATATYPE_FACTORIES.get();
     }
 
     public Object convert(Object value, Class toClass) {
@@ -71,43 +134,15 @@ public class DateToDateConverter implements Converter {
         if (Temporal.class.equals(toClass)) {
             toClass = equivalentTemporal(value);
         }
-        String key = ConverterRegistry.toKey(getDateClass(value.getClass()), getDateClass(toClass));
-
-        switch (key) {
-            case "java.time.LocalDate-to-javax.xml.datatype.XMLGregorianCalendar":
-                result = toXMLGregorianCalendar((LocalDate) value);
-                break;
-
-            case "java.time.LocalDateTime-to-javax.xml.datatype.XMLGregorianCalendar":
-                result = toXMLGregorianCalendar((LocalDateTime) value);
-                break;
-
-            case "java.time.OffsetDateTime-to-javax.xml.datatype.XMLGregorianCalendar":
-                result = toXMLGregorianCalendar((OffsetDateTime) value);
-                break;
-
-            case "java.time.Instant-to-javax.xml.datatype.XMLGregorianCalendar":
-                result = toXMLGregorianCalendar((Instant) value);
-                break;
-
-            case "javax.xml.datatype.XMLGregorianCalendar-to-java.time.LocalDate":
-                result = ((XMLGregorianCalendar) value).toGregorianCalendar().toZonedDateTime().toLocalDate();
-                break;
-
-            case "javax.xml.datatype.XMLGregorianCalendar-to-java.time.LocalDateTime":
-                result = ((XMLGregorianCalendar) value).toGregorianCalendar().toZonedDateTime().toLocalDateTime();
-                break;
-
-            case "javax.xml.datatype.XMLGregorianCalendar-to-java.time.OffsetDateTime":
-                result = ((XMLGregorianCalendar) value).toGregorianCalendar().toZonedDateTime().toOffsetDateTime();
-                break;
-
-            case "javax.xml.datatype.XMLGregorianCalendar-to-java.time.Instant":
-                result = ((XMLGregorianCalendar) value).toGregorianCalendar().toZonedDateTime().toInstant();
-                break;
-
-            default:
-                LOG.error("Unsupported date conversion request " + key);
+        Class fromDateClass = getDateClass(value.getClass());
+        Class toDateClass = (toClass != null) ? getDateClass(toClass) : null;
+
+        BiFunction<DateToDateConverter, Object, Object> conversion =
+                CONVERSIONS.getOrDefault(fromDateClass, Collections.emptyMap()).get(toDateClass);
+        if (conversion != null) {
+            result = conversion.apply(this, value);
+        } else {
+            LOG.error("Unsupported date conversion request " + ConverterRegistry.toKey(fromDateClass, toDateClass));
         }
 
         if (LOG.isDebugEnabled()) {
@@ -117,67 +152,51 @@ public class DateToDateConverter implements Converter {
         return result;
     }
 
+    /**
+     * @return an xs:date (no time or timezone)
+     */
     public Object toXMLGregorianCalendar(LocalDate date) {
-        Object result;
-        ZonedDateTime zdt = date.atStartOfDay(ZoneId.systemDefault());
-        try {
-            XMLGregorianCalendar calendar = DatatypeFactory.newInstance().newXMLGregorianCalendar(
-                    GregorianCalendar.from(zdt));
-            suppressTimeFields(calendar);
-            result = calendar;
-        } catch (DatatypeConfigurationException ex) {
-            throw new IllegalArgumentException(
-                    Common.concatenate("Cannot convert ", date.toString(), " : ", ex.getMessage()));
-        }
-        return result;
+        return newXMLGregorianCalendar(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
     }
 
+    /**
+     * @return an xs:dateTime without timezone, to the second (with zero milliseconds)
+     */
     public Object toXMLGregorianCalendar(LocalDateTime date) {
-        Object result;
-        ZonedDateTime zdt = ZonedDateTime.of(date, ZoneOffset.UTC);
-        try {
-            XMLGregorianCalendar calendar = DatatypeFactory.newInstance().newXMLGregorianCalendar(
-                    GregorianCalendar.from(zdt));
-            calendar.setTimezone(DatatypeConstants.FIELD_UNDEFINED);
-            calendar.setMillisecond(0);
-            result = calendar;
-        } catch (DatatypeConfigurationException ex) {
-            throw new IllegalArgumentException(
-                    Common.concatenate("Cannot convert ", date.toString(), " : ", ex.getMessage()));
-        }
-        return result;
+        XMLGregorianCalendar calendar = newXMLGregorianCalendar(date.getYear(), date.getMonthValue(),
+                date.getDayOfMonth());
+        calendar.setTime(date.getHour(), date.getMinute(), date.getSecond(), 0);
+        return calendar;
     }
 
+    /**
+     * @return an xs:dateTime with the timezone of the offset, to the millisecond
+     */
     public Object toXMLGregorianCalendar(OffsetDateTime date) {
-        Object result;
-        ZonedDateTime zdt = ZonedDateTime.from(date);
-        try {
-            result = DatatypeFactory.newInstance()
-                    .newXMLGregorianCalendar(GregorianCalendar.from(zdt));
-        } catch (DatatypeConfigurationException ex) {
-            throw new IllegalArgumentException(
-                    Common.concatenate("Cannot convert ", date.toString(), " : ", ex.getMessage()));
-        }
-        return result;
+        XMLGregorianCalendar calendar = newXMLGregorianCalendar(date.getYear(), date.getMonthValue(),
+                date.getDayOfMonth());
+        calendar.setTime(date.getHour(), date.getMinute(), date.getSecond(), date.getNano() / NANOS_PER_MILLI);
+        calendar.setTimezone(date.getOffset().getTotalSeconds() / SECONDS_PER_MINUTE);
+        return calendar;
     }
 
+    /**
+     * @return an xs:dateTime in UTC, to the millisecond
+     */
     public Object toXMLGregorianCalendar(Instant instant) {
-        Object result;
-        ZonedDateTime zdt = ZonedDateTime.ofInstant(instant, ZoneOffset.UTC);
-        try {
-            result = DatatypeFactory.newInstance()
-                    .newXMLGregorianCalendar(GregorianCalendar.from(zdt));
-        } catch (DatatypeConfigurationException ex) {
-            throw new IllegalArgumentException(
-                    Common.concatenate("Cannot convert ", instant.toString(), " : ", ex.getMessage()));
-        }
-        return result;
+        return toXMLGregorianCalendar(instant.atOffset(ZoneOffset.UTC));
     }
 
-    private void suppressTimeFields(XMLGregorianCalendar date) {
-        date.setTimezone(DatatypeConstants.FIELD_UNDEFINED);
-        date.setTime(DatatypeConstants.FIELD_UNDEFINED, DatatypeConstants.FIELD_UNDEFINED,
-                DatatypeConstants.FIELD_UNDEFINED);
+    /**
+     * Set the fields directly, rather than via a GregorianCalendar. As XML Schema 1.0 has no year zero, the ISO
+     * year 0 (1 BC) is year -1, as it was when converting via a GregorianCalendar.
+     */
+    private static XMLGregorianCalendar newXMLGregorianCalendar(int year, int month, int day) {
+        XMLGregorianCalendar calendar = getDatatypeFactory().newXMLGregorianCalendar();
+        calendar.setYear((year > 0) ? year : year - 1);
+        calendar.setMonth(month);
+        calendar.setDay(day);
+        return calendar;
     }
 
     @Override
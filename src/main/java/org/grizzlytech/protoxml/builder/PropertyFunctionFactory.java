@@ -25,22 +25,39 @@
 package org.grizzlytech.protoxml.builder;
 
 import org.grizzlytech.protoxml.beans.Bean;
-import org.grizzlytech.protoxml.builder.functions.Base;
-import org.grizzlytech.protoxml.builder.functions.Dates;
-import org.grizzlytech.protoxml.builder.functions.Maths;
 import org.grizzlytech.protoxml.util.ClassUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.List;
+import java.util.*;
 import java.util.function.Predicate;
 
+/**
+ * Create PropertyFunctions from their names, e.g., !maths#add or !com.example.Functions#lookup
+ * <p>
+ * Function libraries (see PropertyFunctionLibrary) are registered using the ServiceLoader, so that their
+ * functions can be referred to by library name.
+ */
 public class PropertyFunctionFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(PropertyFunctionFactory.class);
 
+    /**
+     * Loaded on first use: the library classes, keyed by lower case library name
+     */
+    private static class Libraries {
+        private static final Map<String, Class> CLASSES = loadLibraries();
+    }
+
+    /**
+     * @return the registered library classes, keyed by lower case library name
+     */
+    public static Map<String, Class> getLibraries() {
+        return Libraries.CLASSES;
+    }
+
     public static PropertyFunction createPropertyFunction(String functionName) {
         PropertyFunction.Syntax syntax = PropertyFunction.Syntax.parseSyntax(functionName);
         return (syntax != null) ? createPropertyFunction(syntax) : null;
@@ -57,22 +74,13 @@ public class PropertyFunctionFactory {
         final Predicate<Method> ATTRIBUTE_FILTER = (m) -> Modifier.isStatic(m.getModifiers());
         final Class[] PARAMETER_TYPES = new Class[]{Bean.class, String.class, String[].class};
 
-        Class clazz;
-        // To minimise typing, the Base class can be referred to as just "Base"
-        switch (className.toLowerCase()) {
-            case "base":
-                clazz = Base.class;
-                break;
-            case "maths":
-                clazz = Maths.class;
-                break;
-
-            case "dates":
-                clazz = Dates.class;
-                break;
-
-            default:
-                clazz = ClassUtil.getClassElseNull(className);
+        // To minimise typing, a library can be referred to by its name, e.g., the Base class as just "Base"
+        Class clazz = getLibraries().get(className.toLowerCase());
+        if (clazz == null) {
+            clazz = ClassUtil.getClassElseNull(className);
+            if (clazz == null) {
+                return null;
+            }
         }
         className = clazz.getCanonicalName();
 
@@ -86,4 +94,34 @@ public class PropertyFunctionFactory {
         return (methods.size() > 0) ? methods.get(0) : null;
     }
 
+    private static Map<String, Class> loadLibraries() {
+        return loadLibraries(PropertyFunctionFactory.class.getClassLoader());
+    }
+
+    static Map<String, Class> loadLibraries(ClassLoader classLoader) {
+        Map<String, Class> libraries = new HashMap<>();
+        Iterator<PropertyFunctionLibrary> iterator = ServiceLoader.load(PropertyFunctionLibrary.class,
+                classLoader).iterator();
+        boolean hasNext = true;
+        while (hasNext) {
+            // Stop should hasNext itself fail (e.g., a malformed services file), as it may fail on every call
+            hasNext = false;
+            try {
+                hasNext = iterator.hasNext();
+                if (hasNext) {
+                    PropertyFunctionLibrary library = iterator.next();
+                    Class previous = libraries.put(library.getName().toLowerCase(), library.getClass());
+                    if (previous != null) {
+                        LOG.warn("Library name [{}] is used by both {} and {}. Using {}", library.getName(),
+                                previous.getCanonicalName(), library.getClass().getCanonicalName(),
+                                library.getClass().getCanonicalName());
+                    }
+                }
+            } catch (ServiceConfigurationError ex) {
+                LOG.error("Unable to load PropertyFunctionLibrary", ex);
+            }
+        }
+        LOG.debug("Registered PropertyFunctionLibraries {}", libraries.keySet());
+        return Collections.unmodifiableMap(libraries);
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.builder;
+
+
+/**
+ * A library of property functions: public static methods of the form
+ * {@code Object name(Bean bean, String path, String[] args)} declared by the implementing class.
+ * <p>
+ * Libraries are registered using the ServiceLoader (list the class in
+ * META-INF/services/org.grizzlytech.protoxml.builder.PropertyFunctionLibrary), after which their functions
+ * may be referred to by the library name (e.g., !maths#add) rather than the fully qualified class name.
+ */
+public interface PropertyFunctionLibrary {
+
+    /**
+     * @return the short, case-insensitive name of the library, e.g., "maths"
+     */
+    String getName();
+}
@@ -26,6 +26,7 @@ package org.grizzlytech.protoxml.builder.functions;
 
 import org.grizzlytech.protoxml.beans.Bean;
 import org.grizzlytech.protoxml.beans.PropertyException;
+import org.grizzlytech.protoxml.builder.PropertyFunctionLibrary;
 import org.grizzlytech.protoxml.beans.PropertyPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +34,7 @@ import org.slf4j.LoggerFactory;
 /**
  * Base functions used by the Dates and Maths etc. functions
  */
-public class Base {
+public class Base implements PropertyFunctionLibrary {
 
     private static final Logger LOG = LoggerFactory.getLogger(Base.class);
 
@@ -64,4 +65,9 @@ public class Base {
         String resolved = resolvePath(path, args[0]);
         return bean.getPathValue(resolved).getValue();
     }
+
+    @Override
+    public String getName() {
+        return "base";
+    }
 }
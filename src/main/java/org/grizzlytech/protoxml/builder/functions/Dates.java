@@ -26,6 +26,7 @@ package org.grizzlytech.protoxml.builder.functions;
 
 import org.grizzlytech.protoxml.beans.Bean;
 import org.grizzlytech.protoxml.beans.PropertyException;
+import org.grizzlytech.protoxml.builder.PropertyFunctionLibrary;
 import org.grizzlytech.protoxml.util.Common;
 import org.grizzlytech.protoxml.util.DateAdjuster;
 import org.grizzlytech.protoxml.util.DateTimeFormat;
@@ -36,7 +37,7 @@ import org.slf4j.LoggerFactory;
 import java.time.*;
 import java.time.temporal.Temporal;
 
-public class Dates {
+public class Dates implements PropertyFunctionLibrary {
 
     final static public String TODAY = "TODAY"; // LocalDate
     final static public String NOW = "NOW"; // LocalDateTime,
@@ -89,14 +90,22 @@ public class Dates {
     public static Temporal parseNamedDate(String arg) {
         Temporal result = null;
 
+        // Literal dates start with a digit or sign, so rule them out before upper-casing
+        char first = arg.isEmpty() ? ' ' : Character.toUpperCase(arg.charAt(0));
+        if (first != 'T' && first != 'N') {
+            return null;
+        }
+
+        String name = arg.toUpperCase();
+
         // Extract the zone for NOW_OFFSET
         ZoneOffset zoneOffset = null;
-        if (arg.toUpperCase().startsWith(NOW_OFFSET)) {
+        if (name.startsWith(NOW_OFFSET)) {
             zoneOffset = parseZoneOffset(arg.substring(NOW_OFFSET.length(), arg.length()));
-            arg = (zoneOffset != null) ? NOW_OFFSET : NOW_SYSTEM; // use ZONED instead if failed to parse
+            name = (zoneOffset != null) ? NOW_OFFSET : NOW_SYSTEM; // use ZONED instead if failed to parse
         }
 
-        switch (arg.toUpperCase()) {
+        switch (name) {
             case TODAY:
                 result = LocalDate.now();
                 break;
@@ -199,4 +208,9 @@ public class Dates {
 
         return result;
     }
+
+    @Override
+    public String getName() {
+        return "dates";
+    }
 }
@@ -26,6 +26,7 @@ package org.grizzlytech.protoxml.builder.functions;
 
 import org.grizzlytech.protoxml.beans.Bean;
 import org.grizzlytech.protoxml.beans.PropertyException;
+import org.grizzlytech.protoxml.builder.PropertyFunctionLibrary;
 import org.grizzlytech.protoxml.util.NVP;
 import org.grizzlytech.protoxml.util.NumberUtil;
 
@@ -37,7 +38,7 @@ import java.util.List;
 /**
  * Number parsing and basic mathematical operations
  */
-public class Maths {
+public class Maths implements PropertyFunctionLibrary {
 
     /**
      * Parse a string argument for a number
@@ -96,4 +97,9 @@ public class Maths {
         }
         return NumberUtil.removeTrailingZeros(product.toString()); // maximise parsing options later on
     }
+
+    @Override
+    public String getName() {
+        return "maths";
+    }
 }
@@ -34,6 +34,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Helper class to read files that contain name=value pairs
@@ -46,20 +49,29 @@ final public class NVPFileReader extends AbstractNVPReader {
     // Read properties from the provided filename
     public final String INCLUDE_DIRECTIVE = "@include";
     private File sourceFile;
+    // The source file and every file it includes (directly or indirectly), in the order read
+    private final List<File> readFiles = new ArrayList<>();
+    // Time spent reading lines (excluding the time spent handling them)
+    private long readNanos = 0;
 
     /**
      * Read the file and invoke the callback as NVPs are read
      */
     public void readAll() {
+        readFiles.add(sourceFile);
         try (BufferedReader br = new BufferedReader(new FileReader(sourceFile))) {
             String line;
             int lineNum = 0;
 
+            long start = System.nanoTime();
             while ((line = br.readLine()) != null) {
+                readNanos += System.nanoTime() - start;
                 lineNum++;
                 line = line.trim();
                 super.handle(line, lineNum);
+                start = System.nanoTime();
             }
+            readNanos += System.nanoTime() - start;
         } catch (IOException ex) {
             setLastError(ex.getMessage());
             LOG.error("Error reading file [{}]", this.sourceFile, ex);
@@ -81,6 +93,20 @@ final public class NVPFileReader extends AbstractNVPReader {
         this.sourceFile = sourceFile;
     }
 
+    /**
+     * @return the time spent reading this file, and all files included by it
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * @return the source file and all files included by it, including those which did not exist
+     */
+    public List<File> getReadFiles() {
+        return Collections.unmodifiableList(readFiles);
+    }
+
     private boolean handleIncludeDirective(NVP<String> pair, int lineNum) {
         boolean handled = false;
         NVPFileReader includedReader = new NVPFileReader();
@@ -95,8 +121,11 @@ final public class NVPFileReader extends AbstractNVPReader {
         if (includedFile.exists()) {
             includedReader.setSourceFile(includedFile);
             includedReader.read(this.handler);
+            readFiles.addAll(includedReader.getReadFiles());
+            readNanos += includedReader.getReadNanos();
             handled = true;
         } else {
+            readFiles.add(includedFile);
             LOG.error("Line {}: File does not exist: [{}]", lineNum, includedFile.getAbsolutePath());
             setLastError(includedFile.getAbsolutePath() + " does not exist");
         }
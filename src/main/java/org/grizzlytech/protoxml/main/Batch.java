@@ -27,16 +27,41 @@ package org.grizzlytech.protoxml.main;
 
 import org.grizzlytech.protoxml.util.Common;
 import org.grizzlytech.protoxml.util.Tokens;
+import org.grizzlytech.protoxml.xml.SchemaCache;
+import org.grizzlytech.protoxml.xml.SchemaResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Execute a batch of XML processing jobs
+ * <p>
+ * Files are processed by a bounded pool of workers which share a single ProtoAPI. Each file writes to its own
+ * XML, trace and validation files, and the summary is reported in source file name order.
+ * <p>
+ * In incremental mode, a BuildManifest in the target directory records what each target was built from, and
+ * only sources whose dependencies have changed are rebuilt.
+ * <p>
+ * In watch mode, the batch is run and then the source directory, and the directories of included files, are
+ * watched. Only the sources affected by a change are rebuilt, using the same (warm) ProtoAPI.
  */
 public class Batch {
 
@@ -45,30 +70,93 @@ public class Batch {
     private static final String DEFAULT_SOURCE_EXT = "txt";
     private static final String XML_EXT = "xml";
 
+    /**
+     * Options are of the form --name=value and may appear anywhere on the command line
+     */
+    static final String OPTION_PREFIX_S = "--";
+    static final String OPTION_WORKERS = "workers";
+    static final String OPTION_INCREMENTAL = "incremental";
+    static final String OPTION_WATCH = "watch";
+    static final String OPTION_REPORT = "report";
+    static final String OPTION_WARMUP = "warmup";
+
     private final File sourceDir;
     private final File targetDir;
     private final FilenameFilter filenameFilter;
+    private final int workers;
+    private boolean incremental = false;
+    private File reportFile = null;
+    private boolean warmUp = false;
 
     private ProtoAPI api;
+    private BuildManifest manifest;
+
+    private final List<Result> results = new ArrayList<>();
+    private BatchReport report = null;
+
+    /**
+     * The files each source read when last processed, and the reverse: the sources which read each file
+     */
+    private final Map<File, List<Path>> dependencies = new HashMap<>();
+    private final Map<Path, Set<File>> dependents = new HashMap<>();
+
+    private volatile BatchWatcher watcher;
+    private volatile boolean stopRequested = false;
 
     public Batch(File sourceDir, File targetDir, FilenameFilter filenameFilter) {
+        this(sourceDir, targetDir, filenameFilter, defaultWorkers());
+    }
+
+    public Batch(File sourceDir, File targetDir, FilenameFilter filenameFilter, int workers) {
+        Common.argumentAssertion(workers >= 1, LOG, "workers must be at least 1, not {}", workers);
         this.sourceDir = sourceDir;
         this.targetDir = targetDir;
         this.filenameFilter = filenameFilter;
+        this.workers = workers;
     }
 
     public static void main(String args[]) {
+        // Separate the --name=value options from the positional arguments
+        List<String> positional = new ArrayList<>();
+        int workers = defaultWorkers();
+        boolean incremental = false;
+        boolean watch = false;
+        boolean warmUp = false;
+        File reportFile = null;
+        for (String arg : args) {
+            if (isOption(arg, OPTION_INCREMENTAL)) {
+                incremental = true;
+            } else if (isOption(arg, OPTION_WATCH)) {
+                watch = true;
+            } else if (isOption(arg, OPTION_WARMUP)) {
+                warmUp = true;
+            } else if (getOptionValue(arg, OPTION_REPORT) != null) {
+                reportFile = new File(getOptionValue(arg, OPTION_REPORT));
+            } else if (arg.startsWith(OPTION_PREFIX_S)) {
+                // Either an unknown option, or --workers
+                String value = getOptionValue(arg, OPTION_WORKERS);
+                Integer parsed = (value != null) ? parseInteger(value, 1) : null;
+                if (parsed == null) {
+                    LOG.error("Invalid option [{}]", arg);
+                    usage();
+                    return;
+                }
+                workers = parsed;
+            } else {
+                positional.add(arg);
+            }
+        }
 
-        if (args.length < 1) {
-            LOG.error("USAGE: [source-dir] [target-dir] (source-filter]");
-            System.exit(-1);
+        if (positional.size() < 1) {
+            usage();
+            return;
         }
 
-        File sourceDir = getDirectory(args[0]);
-        File targetDir = (args.length >= 2) ? getDirectory(args[1]) : sourceDir;
+        File sourceDir = getDirectory(positional.get(0));
+        File targetDir = (positional.size() >= 2) ? getDirectory(positional.get(1)) : sourceDir;
 
         // Check sourceExtension
-        String sourceExtension = (args.length >= 3) ? args[2].toLowerCase() : DEFAULT_SOURCE_EXT;
+        String sourceExtension = (positional.size() >= 3) ? positional.get(2).toLowerCase() : DEFAULT_SOURCE_EXT;
         Common.fatalAssertion(
                 Common.notEmpty(sourceExtension) && !sourceExtension.contains(Tokens.FILE_EXTENSION_DELIMITER_S),
                 LOG, "sourceExtension {} cannot contain " + Tokens.FILE_EXTENSION_DELIMITER_S, sourceExtension);
@@ -76,7 +164,20 @@ public class Batch {
         FilenameFilter filter = (dir, name) -> name.toLowerCase().endsWith(sourceExtension);
 
         if (sourceDir != null & targetDir != null) {
-            (new Batch(sourceDir, targetDir, filter)).run();
+            Batch batch = new Batch(sourceDir, targetDir, filter, workers);
+            batch.setIncremental(incremental);
+            batch.setReportFile(reportFile);
+            batch.setWarmUp(warmUp);
+            if (watch) {
+                Runtime.getRuntime().addShutdownHook(new Thread(batch::stopWatching));
+                try {
+                    batch.watch();
+                } catch (IOException ex) {
+                    LOG.error("Unable to watch [{}]", sourceDir.getAbsolutePath(), ex);
+                }
+            } else {
+                batch.run();
+            }
         }
     }
 
@@ -89,45 +190,427 @@ public class Batch {
         return dir;
     }
 
+    /**
+     * @return the number of available processors
+     */
+    static int defaultWorkers() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Log the usage and exit
+     */
+    private static void usage() {
+        LOG.error("USAGE: [source-dir] [target-dir] [source-filter] [--workers=n] [--incremental] [--watch] " +
+                "[--warmup] [--report=file.json|file.csv]");
+        System.exit(-1);
+    }
+
+    /**
+     * @return the option value as an integer, or null if it is not an integer of at least min
+     */
+    static Integer parseInteger(String value, int min) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return (parsed >= min) ? parsed : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the value of --name=value, or null if arg is not the named option
+     */
+    static String getOptionValue(String arg, String name) {
+        String prefix = OPTION_PREFIX_S + name + "=";
+        return arg.toLowerCase().startsWith(prefix) ? arg.substring(prefix.length()) : null;
+    }
+
+    /**
+     * Return true if arg is the flag --name
+     */
+    static boolean isOption(String arg, String name) {
+        return arg.equalsIgnoreCase(OPTION_PREFIX_S + name);
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Only rebuild sources whose dependencies have changed since the last incremental run
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    /**
+     * Write a BatchReport to the file after each run: CSV if the file has a csv extension, otherwise JSON
+     */
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Before the first run, warm the caches for every indexed doctype in parallel (see WarmUp)
+     */
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
     /**
      * Process all files in the sourceDir that match the required extension
      */
     public void run() {
-        LOG.info("Batch: Source[{}] and Target[{}]", sourceDir.getAbsolutePath(), targetDir.getAbsolutePath());
+        LOG.info("Batch: Source[{}] and Target[{}] Workers[{}] Incremental[{}]", sourceDir.getAbsolutePath(),
+                targetDir.getAbsolutePath(), workers, incremental);
 
-        this.api = new ProtoAPI();
+        // The ProtoAPI is kept for later runs, so that its caches stay warm
+        if (this.api == null) {
+            this.api = new ProtoAPI();
+            if (warmUp) {
+                new WarmUp(workers).run(this.api);
+            }
+        }
+        this.manifest = incremental ? BuildManifest.load(targetDir, BuildManifest.classpathFingerprint()) : null;
 
         File[] files = this.sourceDir.listFiles(filenameFilter);
-        if (files != null && files.length > 0) {
-            Arrays.stream(files).forEach(this::process);
+        processAll((files != null) ? Arrays.asList(files) : Collections.emptyList(), false);
+    }
+
+    /**
+     * Run the batch, then watch for changes to the sources (and the files they include), rebuilding the affected
+     * sources. Blocks until stopWatching is called.
+     *
+     * @throws IOException if the directories cannot be watched
+     */
+    public void watch()
+            throws IOException {
+        stopRequested = false;
+        run();
+        try (BatchWatcher batchWatcher = new BatchWatcher(this)) {
+            this.watcher = batchWatcher;
+            if (!stopRequested) {
+                batchWatcher.watch();
+            }
+        } finally {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * @return true once watch has run the batch and is waiting for changes
+     */
+    public boolean isWatching() {
+        return watcher != null;
+    }
+
+    /**
+     * Stop watching, if watching
+     */
+    public void stopWatching() {
+        stopRequested = true;
+        BatchWatcher batchWatcher = this.watcher;
+        if (batchWatcher != null) {
+            batchWatcher.close();
+        }
+    }
+
+    /**
+     * Rebuild the sources affected by changes to the given files, regardless of the manifest
+     *
+     * @param changed paths created, modified or deleted
+     */
+    void rebuild(Collection<Path> changed) {
+        if (manifest != null) {
+            manifest.invalidate(changed);
+        }
+
+        Set<File> affected = new HashSet<>();
+        synchronized (dependencies) {
+            for (Path path : changed) {
+                File file = path.toFile();
+                if (sourceDir.getAbsoluteFile().toPath().normalize().equals(path.getParent()) &&
+                        filenameFilter.accept(sourceDir, file.getName())) {
+                    affected.add(file);
+                }
+                affected.addAll(dependents.getOrDefault(path, Collections.emptySet()));
+            }
+        }
+
+        // Sources which have been deleted are simply forgotten
+        List<File> sources = new ArrayList<>();
+        for (File source : affected) {
+            if (source.isFile()) {
+                sources.add(source);
+            } else {
+                setDependencies(source, Collections.emptyList());
+                forget(source);
+            }
+        }
+
+        if (!sources.isEmpty()) {
+            LOG.info("Batch: Rebuilding {} source(s) affected by {}", sources.size(), changed);
+            processAll(sources, true);
         }
     }
 
+    /**
+     * @return the directories holding the sources and the files they include
+     */
+    Set<Path> getWatchedDirectories() {
+        Set<Path> dirs = new HashSet<>();
+        dirs.add(sourceDir.getAbsoluteFile().toPath().normalize());
+        synchronized (dependencies) {
+            for (Path path : dependents.keySet()) {
+                Path dir = path.getParent();
+                if (dir != null && dir.toFile().isDirectory()) {
+                    dirs.add(dir);
+                }
+            }
+        }
+        return dirs;
+    }
+
+    private void processAll(List<File> files, boolean force) {
+        long start = System.nanoTime();
+        this.results.clear();
+        if (!files.isEmpty()) {
+            // Sort so that the summary is deterministic, regardless of completion order
+            List<File> sorted = new ArrayList<>(files);
+            sorted.sort(Comparator.comparing(File::getName));
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, sorted.size()));
+            try {
+                List<Future<Result>> futures = new ArrayList<>();
+                for (File file : sorted) {
+                    futures.add(executor.submit(() -> process(file, force)));
+                }
+                for (int i = 0; i < sorted.size(); i++) {
+                    results.add(getResult(futures.get(i), sorted.get(i)));
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        if (manifest != null) {
+            saveManifest();
+        }
+        this.report = new BatchReport(results, System.nanoTime() - start);
+        if (reportFile != null) {
+            writeReport();
+        }
+        logSummary();
+    }
+
     /**
      * Invoke the ProtoXML createAndValidateXMLFile on the source file
+     *
      * @param sourceFile file to be processed
+     * @return the outcome of processing the file
      */
-    public void process(File sourceFile) {
+    public Result process(File sourceFile) {
+        return process(sourceFile, false);
+    }
+
+    private Result process(File sourceFile, boolean force) {
         // Determine the targetFile, based on the targetDir and by replacing the source file extension
         String targetFileName = this.targetDir.getAbsolutePath() + File.separator +
                 Common.setFilenameExtension(sourceFile.getName(), XML_EXT);
         File targetFile = new File(targetFileName);
 
+        if (!force && manifest != null && manifest.isUpToDate(sourceFile, targetFile)) {
+            setDependencies(sourceFile, manifest.getDependencies(sourceFile));
+            return new Result(sourceFile, targetFile, null, true);
+        }
+
         // Remove existing target file (if applicable)
         if (targetFile.exists()) {
             if (!targetFile.delete())
             {
                 LOG.error("Unable to delete existing file [{}]", targetFile.toString());
-                return;
+                forget(sourceFile);
+                return new Result(sourceFile, targetFile, "Unable to delete existing file");
             }
         }
 
         // Invoke API
+        StageTimings timings = new StageTimings();
         try {
-            api.createAndValidateXMLFile(sourceFile, targetFile);
-        } catch (IOException ex) {
+            List<File> readFiles = api.createAndValidateXMLFile(sourceFile, targetFile, timings);
+            setDependencies(sourceFile, readFiles);
+            if (manifest != null) {
+                manifest.record(sourceFile, readFiles);
+            }
+        } catch (IOException | RuntimeException ex) {
             LOG.error("Problem [{}]->[{}] Error[{}]", sourceFile.getAbsolutePath(), targetFile.getAbsolutePath(),
                     ex.getMessage());
+            forget(sourceFile);
+            return new Result(sourceFile, targetFile, Common.safeToString(ex.getMessage()));
+        }
+        return new Result(sourceFile, targetFile, null, timings);
+    }
+
+    /**
+     * @return the timings and throughput of the last run, or null if there has been no run
+     */
+    public BatchReport getReport() {
+        return report;
+    }
+
+    /**
+     * @return the outcome of each file processed by the last run, in source file name order
+     */
+    public List<Result> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    private void setDependencies(File sourceFile, List<File> readFiles) {
+        File source = toAbsolute(sourceFile);
+        List<Path> paths = new ArrayList<>();
+        paths.add(source.toPath());
+        readFiles.forEach(file -> paths.add(toAbsolute(file).toPath()));
+
+        synchronized (dependencies) {
+            List<Path> previous = dependencies.put(source, paths);
+            if (previous != null) {
+                previous.forEach(path -> dependents.computeIfPresent(path, (k, v) -> {
+                    v.remove(source);
+                    return v.isEmpty() ? null : v;
+                }));
+            }
+            paths.forEach(path -> dependents.computeIfAbsent(path, k -> new HashSet<>()).add(source));
+        }
+    }
+
+    private static File toAbsolute(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    private void forget(File sourceFile) {
+        if (manifest != null) {
+            manifest.remove(sourceFile);
+        }
+    }
+
+    private void writeReport() {
+        try {
+            report.write(reportFile);
+        } catch (IOException ex) {
+            LOG.error("Unable to write the report to [{}]", reportFile.getAbsolutePath(), ex);
+        }
+    }
+
+    private void saveManifest() {
+        try {
+            manifest.save();
+        } catch (IOException ex) {
+            LOG.error("Unable to save the manifest to [{}]", targetDir.getAbsolutePath(), ex);
+        }
+    }
+
+    private Result getResult(Future<Result> future, File sourceFile) {
+        Result result;
+        try {
+            result = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result = new Result(sourceFile, null, "Interrupted");
+        } catch (ExecutionException ex) {
+            result = new Result(sourceFile, null, Common.safeToString(ex.getCause()));
+        }
+        return result;
+    }
+
+    private void logSummary() {
+        long failed = results.stream().filter(r -> !r.isSuccess()).count();
+        long skipped = results.stream().filter(Result::isSkipped).count();
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Batch summary: Processed (%s) Succeeded (%s) Failed (%s) Up to date (%s)",
+                results.size(), results.size() - failed, failed, skipped));
+        for (Result result : results) {
+            builder.append(Tokens.NEWLINE_S).append(result.toString());
+        }
+        builder.append(Tokens.NEWLINE_S).append(report.toString());
+        builder.append(Tokens.NEWLINE_S).append(SchemaCache.getInstance().toString());
+        builder.append(Tokens.NEWLINE_S).append(SchemaResourceCache.getInstance().toString());
+        LOG.info(builder.toString());
+    }
+
+    /**
+     * Outcome of processing a single source file
+     */
+    public static class Result {
+        private final File sourceFile;
+        private final File targetFile;
+        private final String error;
+        private final boolean skipped;
+        private final StageTimings timings;
+
+        Result(File sourceFile, File targetFile, String error) {
+            this(sourceFile, targetFile, error, false, null);
+        }
+
+        Result(File sourceFile, File targetFile, String error, boolean skipped) {
+            this(sourceFile, targetFile, error, skipped, null);
+        }
+
+        Result(File sourceFile, File targetFile, String error, StageTimings timings) {
+            this(sourceFile, targetFile, error, false, timings);
+        }
+
+        private Result(File sourceFile, File targetFile, String error, boolean skipped, StageTimings timings) {
+            this.sourceFile = sourceFile;
+            this.targetFile = targetFile;
+            this.error = error;
+            this.skipped = skipped;
+            this.timings = timings;
+        }
+
+        public File getSourceFile() {
+            return sourceFile;
+        }
+
+        public File getTargetFile() {
+            return targetFile;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * @return the time spent in each stage, or null if the target was not built
+         */
+        public StageTimings getTimings() {
+            return timings;
+        }
+
+        /**
+         * @return true if the target was up to date, and hence not rebuilt
+         */
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s -> %s%s", isSkipped() ? "SKIP" : isSuccess() ? "OK  " : "FAIL", sourceFile.getName(),
+                    (targetFile != null) ? targetFile.getName() : "null",
+                    isSuccess() ? "" : " [" + error + "]");
         }
     }
 }
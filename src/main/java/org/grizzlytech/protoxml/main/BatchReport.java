@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import org.grizzlytech.protoxml.main.StageTimings.Stage;
+import org.grizzlytech.protoxml.util.Tokens;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throughput and per-stage timings of a Batch run, in a machine readable form (JSON or CSV) so that runs can be
+ * compared over time.
+ * <p>
+ * Percentiles are taken over the documents built by the run, i.e. excluding failures and up to date sources.
+ * TOTAL is the sum of the stages for each document. A stage is reported only if it was timed for at least one
+ * document: single pass validation reports MARSHAL_VALIDATE rather than MARSHAL and VALIDATE, and documents
+ * without a schema have no VALIDATE. Writing the XML and inserting its comments happen as it is marshalled, so
+ * are part of MARSHAL (or MARSHAL_VALIDATE).
+ */
+public class BatchReport {
+
+    static final String TOTAL = "TOTAL";
+
+    private static final String CSV_EXT = "csv";
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final int processed;
+    private final int failed;
+    private final int upToDate;
+    private final int built;
+    private final long elapsedNanos;
+    private long bytesIn = 0;
+    private long bytesOut = 0;
+
+    /**
+     * Sorted per document timings, by stage name (and TOTAL)
+     */
+    private final Map<String, long[]> stageNanos = new LinkedHashMap<>();
+
+    public BatchReport(List<Batch.Result> results, long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+        this.processed = results.size();
+        this.failed = (int) results.stream().filter(r -> !r.isSuccess()).count();
+        this.upToDate = (int) results.stream().filter(Batch.Result::isSkipped).count();
+
+        List<StageTimings> timings = new ArrayList<>();
+        for (Batch.Result result : results) {
+            if (result.isSuccess() && !result.isSkipped() && result.getTimings() != null) {
+                timings.add(result.getTimings());
+                bytesIn += result.getTimings().getBytesIn();
+                bytesOut += result.getTimings().getBytesOut();
+            }
+        }
+        this.built = timings.size();
+
+        for (Stage stage : Stage.values()) {
+            if (timings.stream().noneMatch(t -> t.isRecorded(stage))) {
+                continue;
+            }
+            stageNanos.put(stage.name(), sorted(timings.stream().mapToLong(t -> t.getNanos(stage)).toArray()));
+        }
+        stageNanos.put(TOTAL, sorted(timings.stream().mapToLong(StageTimings::getTotalNanos).toArray()));
+    }
+
+    public int getBuilt() {
+        return built;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return documents built per second of elapsed (wall clock) time
+     */
+    public double getDocsPerSecond() {
+        return (elapsedNanos > 0) ? built / (elapsedNanos / 1e9) : 0;
+    }
+
+    /**
+     * Nearest rank percentile
+     *
+     * @param stage      a Stage name, or TOTAL
+     * @param percentile between 0 and 100
+     * @return the percentile in nanoseconds, or 0 if no documents were built
+     */
+    public long getPercentileNanos(String stage, double percentile) {
+        long[] values = stageNanos.get(stage);
+        if (values == null || values.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+        return values[Math.max(0, Math.min(values.length, rank) - 1)];
+    }
+
+    public long getTotalNanos(String stage) {
+        long[] values = stageNanos.get(stage);
+        return (values != null) ? Arrays.stream(values).sum() : 0;
+    }
+
+    public String toJSON() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{").append(Tokens.NEWLINE_S);
+        for (Map.Entry<String, String> entry : getRunValues().entrySet()) {
+            builder.append(String.format("  \"%s\": %s,%s", entry.getKey(), entry.getValue(), Tokens.NEWLINE_S));
+        }
+        builder.append("  \"stages\": {").append(Tokens.NEWLINE_S);
+        int remaining = stageNanos.size();
+        for (String stage : stageNanos.keySet()) {
+            builder.append(String.format("    \"%s\": {", stage));
+            List<String> fields = new ArrayList<>();
+            getStageValues(stage).forEach((key, value) -> fields.add(String.format("\"%s\": %s", key, value)));
+            builder.append(String.join(", ", fields));
+            builder.append((--remaining > 0) ? "}," : "}").append(Tokens.NEWLINE_S);
+        }
+        builder.append("  }").append(Tokens.NEWLINE_S);
+        builder.append("}").append(Tokens.NEWLINE_S);
+        return builder.toString();
+    }
+
+    /**
+     * A header row and a single data row, so that the rows of successive runs can be appended to one another
+     */
+    public String toCSV() {
+        List<String> names = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        getRunValues().forEach((key, value) -> {
+            names.add(key);
+            values.add(value);
+        });
+        for (String stage : stageNanos.keySet()) {
+            getStageValues(stage).forEach((key, value) -> {
+                names.add(stage + "." + key);
+                values.add(value);
+            });
+        }
+        return String.join(",", names) + Tokens.NEWLINE_S + String.join(",", values) + Tokens.NEWLINE_S;
+    }
+
+    /**
+     * Write the report as CSV if the file has a csv extension, otherwise as JSON
+     */
+    public void write(File reportFile)
+            throws IOException {
+        String report = reportFile.getName().toLowerCase().endsWith(Tokens.FILE_EXTENSION_DELIMITER_S + CSV_EXT) ?
+                toCSV() : toJSON();
+        Files.write(reportFile.toPath(), report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "BatchReport: Built (%s) in %.1f ms, %.1f docs/sec, p50 (%.3f ms) " +
+                        "p95 (%.3f ms) p99 (%.3f ms)", built, elapsedNanos / 1e6, getDocsPerSecond(),
+                getPercentileNanos(TOTAL, 50) / 1e6, getPercentileNanos(TOTAL, 95) / 1e6,
+                getPercentileNanos(TOTAL, 99) / 1e6);
+    }
+
+    private Map<String, String> getRunValues() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("processed", String.valueOf(processed));
+        values.put("built", String.valueOf(built));
+        values.put("failed", String.valueOf(failed));
+        values.put("upToDate", String.valueOf(upToDate));
+        values.put("elapsedMs", toMillis(elapsedNanos));
+        values.put("docsPerSecond", String.format(Locale.ROOT, "%.3f", getDocsPerSecond()));
+        values.put("bytesIn", String.valueOf(bytesIn));
+        values.put("bytesOut", String.valueOf(bytesOut));
+        return values;
+    }
+
+    private Map<String, String> getStageValues(String stage) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("totalMs", toMillis(getTotalNanos(stage)));
+        for (double percentile : PERCENTILES) {
+            values.put(String.format("p%.0fMs", percentile), toMillis(getPercentileNanos(stage, percentile)));
+        }
+        return values;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static long[] sorted(long[] values) {
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch the directories of a Batch, rebuilding the sources affected by each burst of changes.
+ * <p>
+ * Editors commonly save a file as several events (truncate, write, rename), so events are collected until none
+ * have arrived for the debounce period, and then handled together.
+ */
+class BatchWatcher implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchWatcher.class);
+
+    static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private final Batch batch;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Set<Path> registered = new HashSet<>();
+
+    BatchWatcher(Batch batch)
+            throws IOException {
+        this(batch, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    BatchWatcher(Batch batch, long debounceMillis)
+            throws IOException {
+        this.batch = batch;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerAll();
+    }
+
+    /**
+     * Handle changes until closed
+     *
+     * @throws IOException if a directory cannot be watched
+     */
+    void watch()
+            throws IOException {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                boolean overflow = collect(watchService.take(), changed);
+
+                // Debounce: keep collecting until the burst is over
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(key, changed);
+                }
+
+                if (overflow) {
+                    LOG.warn("Too many changes to track, running the whole batch");
+                    batch.run();
+                } else {
+                    batch.rebuild(changed);
+                }
+
+                // Builds may have included files from further directories
+                registerAll();
+            }
+        } catch (ClosedWatchServiceException ex) {
+            LOG.info("Stopped watching");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            LOG.warn("Unable to close the watch service", ex);
+        }
+    }
+
+    private void registerAll()
+            throws IOException {
+        for (Path dir : batch.getWatchedDirectories()) {
+            if (registered.add(dir)) {
+                LOG.info("Watching [{}]", dir);
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    // Returns true if events were lost
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changed.add(dir.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            // The directory is no longer accessible
+            registered.remove(dir);
+        }
+        return overflow;
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import org.grizzlytech.protoxml.util.Common;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Records, for each source file built by an incremental Batch, the files it depends upon: the source itself and
+ * every file pulled in by an include directive. Each dependency is recorded with its content hash.
+ * <p>
+ * A source is up to date when its target exists and none of its dependencies have changed. The size and
+ * modification time are checked first, and the content is only hashed when they differ. The whole manifest is
+ * invalidated when the classpath fingerprint (the jars, classes and schemas used to build) changes.
+ * <p>
+ * The manifest is only written to a temporary file, which then replaces the previous manifest, so an interrupted
+ * run never leaves a partial manifest behind.
+ */
+public class BuildManifest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuildManifest.class);
+
+    static final String MANIFEST_FILE_NAME = ".protoxml-manifest";
+
+    private static final String HEADER = "# protoxml build manifest v1";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String SOURCE = "source";
+    private static final String DEPENDENCY = "dependency";
+    private static final String SEPARATOR_S = "\t";
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String MISSING_HASH = "-";
+
+    private final File manifestFile;
+    private final String fingerprint;
+
+    /**
+     * Dependencies from the previous run, by source path
+     */
+    private final Map<String, List<Dependency>> previous = new ConcurrentHashMap<>();
+    /**
+     * Dependencies confirmed or rebuilt by this run, by source path. Only these are saved.
+     */
+    private final ConcurrentMap<String, List<Dependency>> current = new ConcurrentHashMap<>();
+
+    /**
+     * Dependencies checked or hashed during this run, by path, as included files are commonly shared by many
+     * sources. A manifest kept across rebuilds (see Batch#watch) must invalidate the files which change.
+     */
+    private final ConcurrentMap<String, Dependency> hashed = new ConcurrentHashMap<>();
+
+    private BuildManifest(File manifestFile, String fingerprint) {
+        this.manifestFile = manifestFile;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Load the manifest from the target directory. An absent or unreadable manifest, or one built with a
+     * different classpath, is treated as empty.
+     *
+     * @param targetDir   directory holding the targets and the manifest
+     * @param fingerprint fingerprint of the current classpath
+     * @return the manifest
+     */
+    public static BuildManifest load(File targetDir, String fingerprint) {
+        BuildManifest manifest = new BuildManifest(new File(targetDir, MANIFEST_FILE_NAME), fingerprint);
+        if (manifest.manifestFile.isFile()) {
+            try {
+                manifest.read();
+            } catch (IOException | RuntimeException ex) {
+                LOG.warn("Ignoring unreadable manifest [{}]: {}", manifest.manifestFile, ex.getMessage());
+                manifest.previous.clear();
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Determine whether the source needs to be rebuilt. An up to date source is carried forward to the next save.
+     *
+     * @param sourceFile source file
+     * @param targetFile target file built from the source
+     * @return true if the target exists and no dependency has changed
+     */
+    public boolean isUpToDate(File sourceFile, File targetFile) {
+        String sourcePath = toPath(sourceFile);
+        List<Dependency> dependencies = previous.get(sourcePath);
+        if (dependencies == null || !targetFile.exists()) {
+            return false;
+        }
+        List<Dependency> confirmed = new ArrayList<>(dependencies.size());
+        for (Dependency dependency : dependencies) {
+            Dependency unchanged = hashed.computeIfAbsent(dependency.path, path -> dependency.confirm());
+            if (unchanged == Dependency.CHANGED) {
+                LOG.debug("[{}] changed, rebuilding [{}]", dependency.path, sourcePath);
+                return false;
+            }
+            confirmed.add(unchanged);
+        }
+        current.put(sourcePath, Collections.unmodifiableList(confirmed));
+        return true;
+    }
+
+    /**
+     * @return the files the source depended upon when last built, or an empty list if unknown
+     */
+    public List<File> getDependencies(File sourceFile) {
+        List<Dependency> dependencies = current.getOrDefault(toPath(sourceFile),
+                previous.getOrDefault(toPath(sourceFile), Collections.emptyList()));
+        List<File> files = new ArrayList<>(dependencies.size());
+        dependencies.forEach(dependency -> files.add(new File(dependency.path)));
+        return files;
+    }
+
+    /**
+     * Record the files read when building the source
+     *
+     * @param sourceFile source file
+     * @param readFiles  the source file and all the files it includes
+     */
+    public void record(File sourceFile, List<File> readFiles) {
+        List<Dependency> dependencies = new ArrayList<>();
+        for (File file : readFiles) {
+            dependencies.add(hashed.compute(toPath(file),
+                    (path, known) -> (known == null || known == Dependency.CHANGED) ? Dependency.of(path) : known));
+        }
+        current.put(toPath(sourceFile), Collections.unmodifiableList(dependencies));
+    }
+
+    /**
+     * Forget what is known of the changed files, so that they are checked (and hashed) afresh when next recorded
+     *
+     * @param changed paths created, modified or deleted since they were last checked
+     */
+    public void invalidate(Collection<Path> changed) {
+        changed.forEach(path -> hashed.remove(toPath(path.toFile())));
+    }
+
+    /**
+     * Forget the source, so that it is rebuilt next time
+     */
+    public void remove(File sourceFile) {
+        current.remove(toPath(sourceFile));
+    }
+
+    /**
+     * Replace the manifest with the sources confirmed or built by this run
+     *
+     * @throws IOException if the manifest cannot be written
+     */
+    public void save()
+            throws IOException {
+        Path target = manifestFile.toPath();
+        Path temp = Files.createTempFile(target.getParent(), MANIFEST_FILE_NAME, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                writeLine(writer, FINGERPRINT, fingerprint);
+                // Sorted, so that the manifest is stable from run to run
+                for (Map.Entry<String, List<Dependency>> entry : new TreeMap<>(current).entrySet()) {
+                    writeLine(writer, SOURCE, entry.getKey());
+                    for (Dependency dependency : entry.getValue()) {
+                        writeLine(writer, DEPENDENCY, dependency.path, String.valueOf(dependency.size),
+                                String.valueOf(dependency.modified), dependency.hash);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * Fingerprint the classpath, i.e. everything which may change the XML built from an unchanged source. Jars
+     * are identified by path, size and modification time; within directories only classes and schemas count.
+     *
+     * @return hex encoded fingerprint
+     */
+    public static String classpathFingerprint() {
+        MessageDigest digest = newDigest();
+        String classPath = System.getProperty("java.class.path", "");
+        for (String entry : classPath.split(File.pathSeparator)) {
+            File file = new File(entry);
+            if (file.isFile()) {
+                update(digest, file.toPath());
+            } else if (file.isDirectory()) {
+                try (Stream<Path> paths = Files.walk(file.toPath())) {
+                    paths.filter(p -> isFingerprinted(p.getFileName().toString()))
+                            .sorted()
+                            .forEach(p -> update(digest, p));
+                } catch (IOException ex) {
+                    LOG.warn("Unable to fingerprint [{}]: {}", file, ex.getMessage());
+                    digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    // IMPLEMENTATION
+
+    private void read()
+            throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            List<Dependency> dependencies = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR_S);
+                switch (fields[0]) {
+                    case FINGERPRINT:
+                        if (!fingerprint.equals(fields[1])) {
+                            LOG.info("Classpath has changed, rebuilding all sources");
+                            previous.clear();
+                            return;
+                        }
+                        break;
+                    case SOURCE:
+                        dependencies = new ArrayList<>();
+                        previous.put(fields[1], dependencies);
+                        break;
+                    case DEPENDENCY:
+                        Common.fatalAssertion(dependencies != null, LOG, "Dependency before source: {}", line);
+                        assert dependencies != null;
+                        dependencies.add(new Dependency(fields[1], Long.parseLong(fields[2]),
+                                Long.parseLong(fields[3]), fields[4]));
+                        break;
+                    default:
+                        // Header or comment
+                }
+            }
+        }
+    }
+
+    private static void writeLine(BufferedWriter writer, String... fields)
+            throws IOException {
+        writer.write(String.join(SEPARATOR_S, fields));
+        writer.newLine();
+    }
+
+    private static String toPath(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static boolean isFingerprinted(String name) {
+        String lowerName = name.toLowerCase();
+        return lowerName.endsWith(".class") || lowerName.endsWith(".xsd") || lowerName.endsWith(".jar");
+    }
+
+    private static void update(MessageDigest digest, Path path) {
+        File file = path.toFile();
+        digest.update(String.format("%s|%s|%s;", path, file.length(), file.lastModified())
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(HASH_ALGORITHM + " unavailable", ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A file, with its size, modification time and content hash when recorded
+     */
+    private static class Dependency {
+        private static final Dependency CHANGED = new Dependency("", -1, -1, MISSING_HASH);
+
+        private final String path;
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        Dependency(String path, long size, long modified, String hash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        static Dependency of(String path) {
+            File file = new File(path);
+            if (!file.isFile()) {
+                return new Dependency(path, -1, -1, MISSING_HASH);
+            }
+            return new Dependency(path, file.length(), file.lastModified(), hash(file));
+        }
+
+        /**
+         * @return this if untouched, a copy with the current size and modification time if touched but the
+         * content is unchanged, otherwise CHANGED
+         */
+        Dependency confirm() {
+            File file = new File(path);
+            if (!file.isFile()) {
+                return MISSING_HASH.equals(hash) ? this : CHANGED;
+            }
+            if (file.length() == size && file.lastModified() == modified) {
+                return this;
+            }
+            // Touched, but possibly not changed
+            Dependency latest = of(path);
+            return hash.equals(latest.hash) ? latest : CHANGED;
+        }
+
+        private static String hash(File file) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[8192];
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                int count;
+                while ((count = inputStream.read(buffer)) > 0) {
+                    digest.update(buffer, 0, count);
+                }
+            } catch (IOException ex) {
+                LOG.warn("Unable to hash [{}]: {}", file, ex.getMessage());
+                return MISSING_HASH;
+            }
+            return toHex(digest.digest());
+        }
+    }
+}
@@ -38,6 +38,11 @@ public class Config {
      *  xsi:schemaLocation="http://www.foo.org/bar /C:/Dev/../schema\foo\bar.xsd"
      */
     private boolean outputSchemaLocations = false;
+    /**
+     * Validate the XML as it is marshalled and streamed to the output file, rather than re-reading the file.
+     * The validation results are the same, except that they do not carry line and column numbers.
+     */
+    private boolean singlePassValidation = false;
 
     public boolean usePrefixMapper() {
         return usePrefixMapper;
@@ -54,4 +59,12 @@ public class Config {
     public void outputSchemaLocations(boolean outputSchemaLocations) {
         this.outputSchemaLocations = outputSchemaLocations;
     }
+
+    public boolean singlePassValidation() {
+        return singlePassValidation;
+    }
+
+    public void singlePassValidation(boolean singlePassValidation) {
+        this.singlePassValidation = singlePassValidation;
+    }
 }
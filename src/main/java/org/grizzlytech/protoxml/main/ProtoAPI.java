@@ -31,6 +31,7 @@ import org.grizzlytech.protoxml.builder.NVPReader;
 import org.grizzlytech.protoxml.builder.readers.NVPFileReader;
 import org.grizzlytech.protoxml.util.ClassUtil;
 import org.grizzlytech.protoxml.util.Common;
+import org.grizzlytech.protoxml.util.FatalException;
 import org.grizzlytech.protoxml.util.Tokens;
 import org.grizzlytech.protoxml.xml.*;
 import org.slf4j.Logger;
@@ -39,28 +40,50 @@ import org.w3c.dom.ls.LSResourceResolver;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.*;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * XML Prototyping API
+ * <p>
+ * A single instance may be shared by concurrent callers (see Batch). Per-document state (the Bean, trace,
+ * XML and validation output) is created per call, and the ElementList registry is safe for concurrent use.
  */
 public class ProtoAPI {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProtoAPI.class);
 
-    private final Map<Class, ElementList> registry = new HashMap<>();
+    /**
+     * Buffer size used when streaming XML to a file
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<Class, ElementList> registry = new ConcurrentHashMap<>();
+
+    // Build-time index of element classes to ElementLists, loaded on first use
+    private volatile ElementListIndex elementListIndex = null;
+
+    // Resolutions by element class, pending or complete. A null result (no ElementList) is also kept.
+    private final ConcurrentMap<Class, FutureTask<ElementList>> resolutions = new ConcurrentHashMap<>();
+
+    // Each ElementList is created and initialised once, by class name
+    private final Map<String, ElementList> elementLists = new ConcurrentHashMap<>();
+
+    // The ElementLists found by scanning each package
+    private final Map<String, List<ElementList>> scannedPackages = new ConcurrentHashMap<>();
 
     private final Config config = new Config();
 
@@ -73,9 +96,24 @@ public class ProtoAPI {
      *
      * @param nvpFile the property file
      * @param xmlFile the output XML file
+     * @return the property files read: nvpFile, followed by any files it includes
+     * @throws IOException if reading or writing errors occur
+     */
+    public List<File> createAndValidateXMLFile(File nvpFile, File xmlFile)
+            throws IOException {
+        return createAndValidateXMLFile(nvpFile, xmlFile, new StageTimings());
+    }
+
+    /**
+     * Read properties from the NVP file, create the XML file and then validate it, timing each stage
+     *
+     * @param nvpFile the property file
+     * @param xmlFile the output XML file
+     * @param timings receives the time spent in each stage
+     * @return the property files read: nvpFile, followed by any files it includes
      * @throws IOException if reading or writing errors occur
      */
-    public void createAndValidateXMLFile(File nvpFile, File xmlFile)
+    public List<File> createAndValidateXMLFile(File nvpFile, File xmlFile, StageTimings timings)
             throws IOException {
         Common.fatalAssertion(
                 (nvpFile != null && nvpFile.exists() && nvpFile.isFile()),
@@ -86,22 +124,110 @@ public class ProtoAPI {
 
         // Build Bean
         File traceFile = new File(xmlFile.getAbsoluteFile() + ".trc");
-        Bean bean = createBean(nvpFile, traceFile);
+        NVPFileReader reader = new NVPFileReader();
+        reader.setSourceFile(nvpFile);
+        long start = System.nanoTime();
+        Bean bean = createBean(reader, traceFile);
+        timings.add(StageTimings.Stage.READ, reader.getReadNanos());
+        timings.add(StageTimings.Stage.BUILD, System.nanoTime() - start - reader.getReadNanos());
+        reader.getReadFiles().forEach(file -> timings.addBytesIn(file.length()));
         Common.fatalAssertion((bean != null) && (bean.unwrap() != null), LOG,
                 "Unable to create bean");
 
-        // Create XML
+        // Create XML and validate XML vs Schema
         assert bean != null;
-        createXML(bean, xmlFile);
-
-        // Validate XML vs Schema
         Class elementClass = bean.unwrap().getClass();
         URL schemaURL = getSchemaURL(elementClass);
         if (schemaURL != null) {
             ElementList elementList = getElementList(elementClass);
             File validationFile = new File(xmlFile.getAbsoluteFile() + ".val");
-            validate(xmlFile, schemaURL, elementList.getResourceResolver(), validationFile);
+            if (config.singlePassValidation()) {
+                createAndValidateXML(bean, xmlFile, schemaURL, elementList.getResourceResolver(), validationFile,
+                        timings);
+            } else {
+                // Marshalling and writing are a single stage when streaming to the file
+                start = System.nanoTime();
+                createXML(bean, xmlFile);
+                start = timings.stop(StageTimings.Stage.MARSHAL, start);
+                validate(xmlFile, schemaURL, elementList.getResourceResolver(), validationFile);
+                timings.stop(StageTimings.Stage.VALIDATE, start);
+            }
+        } else {
+            start = System.nanoTime();
+            createXML(bean, xmlFile);
+            timings.stop(StageTimings.Stage.MARSHAL, start);
+        }
+        timings.addBytesOut(xmlFile.length());
+        return reader.getReadFiles();
+    }
+
+    /**
+     * Create the XML file and validate it in a single pass. The document is validated as it is marshalled and
+     * streamed to the file, so it is neither held in memory nor re-read. The validator sees the marshaller's
+     * events rather than the file, so the validation results do not carry line and column numbers. Used by
+     * createAndValidateXMLFile when Config.singlePassValidation is switched on.
+     *
+     * @param rootElementBean XmlType representing the root element
+     * @param xmlFile         output file for the XML
+     * @param schemaURL       URL to the XSD
+     * @param resolver        resolver, needed should other XSDs be referenced
+     * @param validationFile  output file for validation results
+     * @throws IOException if either file cannot be written
+     */
+    public void createAndValidateXML(Bean rootElementBean, File xmlFile, URL schemaURL, LSResourceResolver resolver,
+                                     File validationFile)
+            throws IOException {
+        createAndValidateXML(rootElementBean, xmlFile, schemaURL, resolver, validationFile, new StageTimings());
+    }
+
+    private void createAndValidateXML(Bean rootElementBean, File xmlFile, URL schemaURL,
+                                      LSResourceResolver resolver, File validationFile, StageTimings timings)
+            throws IOException {
+        // Marshalling, validating and writing are a single stage when streaming to the file
+        long start = System.nanoTime();
+        Schema schema = getSchema(schemaURL, resolver);
+        ErrorHandler handler = new AccumulatorErrorHandler();
+        try (OutputStream outputStream =
+                     new BufferedOutputStream(Files.newOutputStream(xmlFile.toPath()), OUTPUT_BUFFER_SIZE)) {
+            createXML(rootElementBean, outputStream, schema, handler);
+        }
+
+        try (Writer validationWriter =
+                     new OutputStreamWriter(new FileOutputStream(validationFile), StandardCharsets.UTF_8)) {
+            if (schema != null) {
+                validationWriter.write(handler.toString());
+            }
+        }
+        timings.stop(StageTimings.Stage.MARSHAL_VALIDATE, start);
+    }
+
+    /**
+     * Create the XML in memory, validating it against the schema of the root element (if there is one) as it is
+     * marshalled
+     *
+     * @param rootElementBean  XmlType representing the root element
+     * @param validationWriter output writer for validation results
+     * @return the XML, encoded as UTF-8 (empty if the XML could not be created)
+     */
+    public byte[] createAndValidateXML(Bean rootElementBean, Writer validationWriter) {
+        Class elementClass = rootElementBean.unwrap().getClass();
+        URL schemaURL = getSchemaURL(elementClass);
+        Schema schema = (schemaURL != null) ?
+                getSchema(schemaURL, getElementList(elementClass).getResourceResolver()) : null;
+
+        ByteArrayOutputStream xmlBytes = new ByteArrayOutputStream(OUTPUT_BUFFER_SIZE);
+        ErrorHandler handler = new AccumulatorErrorHandler();
+        createXML(rootElementBean, xmlBytes, schema, handler);
+        byte[] xml = xmlBytes.toByteArray();
+
+        if (schema != null && xml.length > 0) {
+            try {
+                validationWriter.write(handler.toString());
+            } catch (IOException ex) {
+                LOG.error("Unable to write validation results", ex);
+            }
         }
+        return xml;
     }
 
     /**
@@ -129,7 +255,11 @@ public class ProtoAPI {
             throws IOException {
         NVPFileReader reader = new NVPFileReader();
         reader.setSourceFile(nvpFile);
+        return createBean(reader, traceFile);
+    }
 
+    private Bean createBean(NVPReader reader, File traceFile)
+            throws IOException {
         try (Writer traceWriter =
                      new OutputStreamWriter(new FileOutputStream(traceFile))) {
             return createBean(reader, traceWriter);
@@ -146,10 +276,73 @@ public class ProtoAPI {
     public void createXML(Bean rootElementBean, Writer xmlWriter)
             throws IOException {
         Object rootElement = rootElementBean.unwrap();
+        XMLMarshaller marshaller = createMarshaller(rootElementBean);
+        Map<XMLPath, String> comments = rootElementBean.getXmlPathComments();
+
+        // Output the XML to the output writer or the info log
+        if (xmlWriter != null) {
+            if (comments.size() > 0) {
+                // This version inserts the comments as the XML streams through to the writer
+                marshaller.toXMLWithComments(rootElement, comments, xmlWriter);
+            } else {
+                // This version uses straight JAXB to marshall to XML
+                marshaller.toXML(rootElement, xmlWriter);
+            }
+        } else {
+            String xmlData = (comments.size() > 0) ? marshaller.toXMLWithComments(rootElement, comments) :
+                    marshaller.toXML(rootElement);
+            LOG.error("toXML:{}{)", Tokens.NEWLINE_S, xmlData);
+        }
+    }
+
+    /**
+     * Create the XML representation of the Bean and write out the result, encoded as UTF-8
+     *
+     * @param rootElementBean XmlType representing the root element
+     * @param xmlFile         output file for the XML
+     * @throws IOException if file cannot be written
+     */
+    public void createXML(Bean rootElementBean, File xmlFile)
+            throws IOException {
+        // Stream straight to the file, so that the bytes match the encoding declared in the XML header
+        try (OutputStream outputStream =
+                     new BufferedOutputStream(Files.newOutputStream(xmlFile.toPath()), OUTPUT_BUFFER_SIZE)) {
+            createXML(rootElementBean, outputStream);
+        }
+    }
+
+    /**
+     * Create the XML representation of the Bean and write out the result, encoded as UTF-8
+     *
+     * @param rootElementBean XmlType representing the root element
+     * @param outputStream    output stream for the XML
+     */
+    public void createXML(Bean rootElementBean, OutputStream outputStream) {
+        createXML(rootElementBean, outputStream, null, null);
+    }
+
+    private void createXML(Bean rootElementBean, OutputStream outputStream, Schema schema,
+                           ErrorHandler errorHandler) {
+        Object rootElement = rootElementBean.unwrap();
+        XMLMarshaller marshaller = createMarshaller(rootElementBean);
+        marshaller.setValidation(schema, errorHandler);
+        Map<XMLPath, String> comments = rootElementBean.getXmlPathComments();
+
+        if (comments.size() > 0) {
+            marshaller.toXMLWithComments(rootElement, comments, outputStream);
+        } else {
+            marshaller.toXML(rootElement, outputStream);
+        }
+    }
+
+    /**
+     * Create a marshaller for the Bean, with the prefix mapper and schema locations set
+     */
+    protected XMLMarshaller createMarshaller(Bean rootElementBean) {
+        Object rootElement = rootElementBean.unwrap();
         ElementList elementList = getElementList(rootElement.getClass());
         LOG.debug("rootElementBean {} & elementList {}", rootElementBean, elementList);
 
-        // Marshall the Document to XML
         XMLMarshaller marshaller = new XMLMarshaller();
 
         // Set the prefix mapper and schema locations
@@ -164,39 +357,7 @@ public class ProtoAPI {
                 }
             }
         }
-
-        Map<XMLPath, String> comments = rootElementBean.getXmlPathComments();
-
-        String xmlData;
-        if (comments.size() > 0) {
-            // This version must marshall to a DOM in order to add comments prior to transformation to XML
-            xmlData = marshaller.toXMLWithComments(rootElement, comments);
-        } else {
-            // This version uses straight JAXB to marshall to XML
-            xmlData = marshaller.toXML(rootElement);
-        }
-
-        // Output the XML to the output file or the info log
-        if ((xmlWriter != null) && (xmlData != null)) {
-            xmlWriter.write(xmlData);
-        } else {
-            LOG.error("toXML:{}{)", Tokens.NEWLINE_S, xmlData);
-        }
-    }
-
-    /**
-     * Create the XML representation of the Bean and write out the result
-     *
-     * @param rootElementBean XmlType representing the root element
-     * @param xmlFile         output file for the XML
-     * @throws IOException if file cannot be written
-     */
-    public void createXML(Bean rootElementBean, File xmlFile)
-            throws IOException {
-        try (Writer outputWriter =
-                     new OutputStreamWriter(new FileOutputStream(xmlFile))) {
-            createXML(rootElementBean, outputWriter);
-        }
+        return marshaller;
     }
 
     /**
@@ -208,19 +369,27 @@ public class ProtoAPI {
      * @param validationWriter output writer for validation results
      */
     public void validate(Reader xmlReader, URL schemaURL, LSResourceResolver resolver, Writer validationWriter) {
-        Source xmlSource = new StreamSource(xmlReader);
-        SchemaFactory schemaFactory = SchemaFactory
-                .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-
-        // Associate the schema factory with the resource resolver, which is responsible for resolving
-        // the imported XSDs
-        schemaFactory.setResourceResolver(resolver);
+        validate(new StreamSource(xmlReader), schemaURL, resolver, validationWriter);
+    }
 
+    /**
+     * @return the compiled schema, or null (having logged the reason) if it cannot be compiled
+     */
+    private Schema getSchema(URL schemaURL, LSResourceResolver resolver) {
         try {
             LOG.info("schemaURL:{}", schemaURL);
-            Schema schema = schemaFactory.newSchema(schemaURL);
+            return SchemaCache.getInstance().getSchema(schemaURL, resolver);
+        } catch (SAXException ex) {
+            LOG.error("Unable to compile " + schemaURL, ex);
+            return null;
+        }
+    }
 
-            Validator validator = schema.newValidator();
+    protected void validate(Source xmlSource, URL schemaURL, LSResourceResolver resolver, Writer validationWriter) {
+        try {
+            LOG.info("schemaURL:{}", schemaURL);
+            // The compiled schema is cached, and the validator is reused by this thread
+            Validator validator = SchemaCache.getInstance().getValidator(schemaURL, resolver);
 
             ErrorHandler handler = new AccumulatorErrorHandler();
             validator.setErrorHandler(handler);
@@ -246,12 +415,13 @@ public class ProtoAPI {
     public void validate(File xmlFile, URL schemaURL, LSResourceResolver resolver, File validationFile)
             throws IOException {
 
-        try (Reader xmlReader =
-                     new InputStreamReader(new FileInputStream(xmlFile));
+        // Read the raw bytes, so the parser honours the encoding declared in the XML header
+        try (InputStream xmlStream =
+                     new BufferedInputStream(new FileInputStream(xmlFile));
              Writer validationWriter =
-                     new OutputStreamWriter(new FileOutputStream(validationFile))
+                     new OutputStreamWriter(new FileOutputStream(validationFile), StandardCharsets.UTF_8)
         ) {
-            validate(xmlReader, schemaURL, resolver, validationWriter);
+            validate(new StreamSource(xmlStream), schemaURL, resolver, validationWriter);
         }
     }
 
@@ -323,54 +493,132 @@ public class ProtoAPI {
         elementList.getElements().forEach(e -> this.registry.put(e.getElementClass(), elementList));
     }
 
+    /**
+     * Create and register every ElementList named by the build-time index (see ElementListIndex)
+     *
+     * @return the indexed ElementLists
+     */
+    public List<ElementList> registerIndexedElementLists() {
+        List<ElementList> result = new ArrayList<>();
+        new TreeSet<>(getElementListIndex().getElementListClassNames().values()).forEach(className -> {
+            ElementList elementList = getOrCreateElementList(className);
+            setElementList(elementList);
+            result.add(elementList);
+        });
+        return result;
+    }
+
+    /**
+     * @return each ElementList registered so far (once, however many elementClasses it registers)
+     */
+    public Collection<ElementList> getRegisteredElementLists() {
+        Set<ElementList> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        result.addAll(this.registry.values());
+        return result;
+    }
+
     /**
      * Get the ElementList associated with the elementClass
      * <p>
-     * If a suitable ElementList has not been registered, then search the classpath for a match.
+     * If a suitable ElementList has not been registered, then consult the ElementListIndex, and failing that
+     * search the classpath for a match. Each elementClass is resolved once: concurrent callers wait for the same
+     * resolution, and an elementClass without an ElementList is remembered as such.
      *
      * @param elementClass the ElementList must register the elementClass
      * @return the ElementList (if registered)
      */
     public ElementList getElementList(Class elementClass) {
         ElementList elementList = this.registry.get(elementClass);
+        return (elementList != null) ? elementList : resolveElementList(elementClass);
+    }
 
-        if (elementList == null) {
-            // Search the classpath
-            elementList = findElementList(elementClass, elementClass.getPackage().getName());
-            // If successful, register it
-            if (elementList != null) {
-                setElementList(elementList);
+    private ElementList resolveElementList(Class elementClass) {
+        FutureTask<ElementList> task = resolutions.get(elementClass);
+        if (task == null) {
+            FutureTask<ElementList> created = new FutureTask<>(() -> {
+                // Consult the index, then search the classpath
+                ElementList found = findIndexedElementList(elementClass);
+                if (found == null) {
+                    found = findElementList(elementClass, elementClass.getPackage().getName());
+                }
+                // If successful, register it
+                if (found != null) {
+                    setElementList(found);
+                }
+                return found;
+            });
+            task = resolutions.putIfAbsent(elementClass, created);
+            if (task == null) {
+                // This thread won the race, so resolve the elementClass
+                task = created;
+                task.run();
             }
         }
-        return elementList;
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            // Do not remember failures (as opposed to absent ElementLists), so that a later request can retry
+            resolutions.remove(elementClass, task);
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new FatalException("Unable to resolve ElementList for " + elementClass.getCanonicalName(), cause);
+        }
+    }
+
+    /**
+     * Find the ElementList that registered the elementClass using the build-time index
+     *
+     * @param elementClass the ElementList must register elementClass
+     * @return the ElementList, or null if the elementClass is not indexed (or the index is stale)
+     */
+    ElementList findIndexedElementList(Class elementClass) {
+        String className = getElementListIndex().findElementListClassName(elementClass);
+        if (className == null) {
+            return null;
+        }
+
+        ElementList result = getOrCreateElementList(className);
+        if (ElementListUtil.findByElementClass(result, elementClass) == null) {
+            LOG.warn("Index is stale: {} does not register {}", className, elementClass.getCanonicalName());
+            result = null;
+        }
+        return result;
+    }
+
+    private ElementListIndex getElementListIndex() {
+        if (elementListIndex == null) {
+            elementListIndex = ElementListIndex.load(Thread.currentThread().getContextClassLoader());
+        }
+        return elementListIndex;
     }
 
     /**
      * Find the ElementList that registered the elementClass by searching the classpath
      * <p>
      * The search starts in the same package as as elementClass, and widens upwards if a
-     * suitable ElementList cannot be found.
+     * suitable ElementList cannot be found, i.e. the ElementList in the nearest package is preferred. Rather than
+     * scan each parent package in turn (re-reading the packages already scanned), a miss scans the whole
+     * classpath once, and the widening is done on the ElementLists found. Packages within a previous scan are
+     * not scanned again.
      *
      * @param elementClass  the ElementList must register elementClass
      * @param searchPackage the package to search from
      * @return the ElementList (if found)
      */
     ElementList findElementList(Class elementClass, String searchPackage) {
-        LOG.info("Searching package [{}] for an ElementList registering {}", searchPackage,
-                elementClass.getCanonicalName());
-
-        ElementList result;
-
-        List<ElementList> allLists = ElementListUtil.createAllElementLists(searchPackage);
+        String scannedPackage = findScannedPackage(searchPackage);
+        String packageName = (scannedPackage != null) ? scannedPackage : searchPackage;
+        ElementList result = findNearest(scanPackage(packageName), elementClass, searchPackage);
 
-        result = allLists.stream()
-                .filter(e -> ElementListUtil.findByElementClass(e, elementClass) != null)
-                .findFirst().orElse(null);
-
-        if (result == null && Common.notEmpty(searchPackage)) {
-            // Widen the search scope to the parent package
-            searchPackage = ClassUtil.getParentPackageName(searchPackage);
-            result = findElementList(elementClass, searchPackage);
+        if (result == null && !Common.isEmpty(packageName)) {
+            // Widen the search scope to the whole classpath
+            result = findNearest(scanPackage(""), elementClass, searchPackage);
         }
 
         if (result == null) {
@@ -380,4 +628,71 @@ public class ProtoAPI {
 
         return result;
     }
+
+    /**
+     * @return the narrowest package already scanned which contains the package, or null if none
+     */
+    private String findScannedPackage(String packageName) {
+        String candidate = packageName;
+        while (!scannedPackages.containsKey(candidate)) {
+            if (Common.isEmpty(candidate)) {
+                return null;
+            }
+            candidate = ClassUtil.getParentPackageName(candidate);
+        }
+        return candidate;
+    }
+
+    /**
+     * @return the ElementList registering the elementClass in the package nearest to searchPackage
+     */
+    private static ElementList findNearest(List<ElementList> elementLists, Class elementClass,
+                                           String searchPackage) {
+        List<ElementList> registering = new ArrayList<>();
+        elementLists.stream().filter(e -> ElementListUtil.findByElementClass(e, elementClass) != null)
+                .forEach(registering::add);
+
+        String packageName = searchPackage;
+        while (!registering.isEmpty()) {
+            String prefix = Common.isEmpty(packageName) ? "" : packageName + ".";
+            for (ElementList elementList : registering) {
+                if (elementList.getClass().getName().startsWith(prefix)) {
+                    return elementList;
+                }
+            }
+            if (Common.isEmpty(packageName)) {
+                break;
+            }
+            packageName = ClassUtil.getParentPackageName(packageName);
+        }
+        return null;
+    }
+
+    /**
+     * Scan the package once, creating (once) every ElementList found. Every element the lists register is
+     * added to the registry, so that those elements need not be resolved.
+     */
+    private List<ElementList> scanPackage(String packageName) {
+        return scannedPackages.computeIfAbsent(packageName, name -> {
+            LOG.info("Searching package [{}] for ElementLists", name);
+            List<ElementList> found = new ArrayList<>();
+            for (String className : ElementListUtil.findAllElementListClassNames(name)) {
+                ElementList elementList = getOrCreateElementList(className);
+                elementList.getElements().forEach(e -> this.registry.putIfAbsent(e.getElementClass(), elementList));
+                found.add(elementList);
+            }
+            return found;
+        });
+    }
+
+    /**
+     * @return the number of packages scanned for ElementLists
+     */
+    int getScannedPackageCount() {
+        return scannedPackages.size();
+    }
+
+    private ElementList getOrCreateElementList(String className) {
+        return elementLists.computeIfAbsent(className, ElementListUtil::createElementList);
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.grizzlytech.protoxml.beans.Bean;
+import org.grizzlytech.protoxml.builder.readers.NVPStringReader;
+import org.grizzlytech.protoxml.util.Common;
+import org.grizzlytech.protoxml.util.Tokens;
+import org.grizzlytech.protoxml.xml.SchemaCache;
+import org.grizzlytech.protoxml.xml.SchemaResourceCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Resident service, which keeps a single ProtoAPI (and hence its ElementLists, JAXBContexts and compiled
+ * schemas) warm across requests. It listens on the loopback interface only.
+ * <p>
+ * POST /xml with the NVP content as the (UTF-8) body. The response body is the XML. The first line of the
+ * validation results is returned in the X-Validation-Summary header, and each validation message in an
+ * X-Validation-Message header. A Bean that cannot be built is reported as 400, with the reason as the body.
+ * <p>
+ * GET /status reports the request counts and the state of the schema cache.
+ */
+public class Server {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+
+    private static final int DEFAULT_PORT = 8642;
+
+    static final String OPTION_PORT = "port";
+
+    static final String XML_PATH = "/xml";
+    static final String STATUS_PATH = "/status";
+
+    static final String VALIDATION_SUMMARY_HEADER = "X-Validation-Summary";
+    static final String VALIDATION_MESSAGE_HEADER = "X-Validation-Message";
+
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String XML_CONTENT_TYPE = "application/xml; charset=UTF-8";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+    private final int port;
+    private final int workers;
+    private boolean warmUp = false;
+
+    private final ProtoAPI api = new ProtoAPI();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public Server(int port, int workers) {
+        Common.argumentAssertion(port >= 0, LOG, "port must not be negative, not {}", port);
+        Common.argumentAssertion(workers >= 1, LOG, "workers must be at least 1, not {}", workers);
+        this.port = port;
+        this.workers = workers;
+    }
+
+    public static void main(String args[])
+            throws IOException {
+        int port = DEFAULT_PORT;
+        int workers = Batch.defaultWorkers();
+        boolean warmUp = false;
+        for (String arg : args) {
+            String portValue = Batch.getOptionValue(arg, OPTION_PORT);
+            String workersValue = Batch.getOptionValue(arg, Batch.OPTION_WORKERS);
+            Integer value;
+            if (portValue != null && (value = Batch.parseInteger(portValue, 0)) != null) {
+                port = value;
+            } else if (workersValue != null && (value = Batch.parseInteger(workersValue, 1)) != null) {
+                workers = value;
+            } else if (Batch.isOption(arg, Batch.OPTION_WARMUP)) {
+                warmUp = true;
+            } else {
+                LOG.error("Invalid option [{}]", arg);
+                LOG.error("USAGE: [--port=n] [--workers=n] [--warmup]");
+                System.exit(-1);
+                return;
+            }
+        }
+
+        Server server = new Server(port, workers);
+        server.setWarmUp(warmUp);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Warm the caches for every indexed doctype (see WarmUp) before listening
+     */
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Start listening
+     *
+     * @return the port listened on, which is chosen by the system if the port requested was 0
+     * @throws IOException if the port cannot be bound
+     */
+    public int start()
+            throws IOException {
+        Common.fatalAssertion(httpServer == null, LOG, "Server already started");
+
+        if (warmUp) {
+            new WarmUp(workers).run(api);
+        }
+
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext(XML_PATH, this::handleXML);
+        httpServer.createContext(STATUS_PATH, this::handleStatus);
+
+        // Requests are handled concurrently, sharing the one ProtoAPI
+        executor = Executors.newFixedThreadPool(workers);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+
+        int boundPort = httpServer.getAddress().getPort();
+        LOG.info("Server: Listening on port [{}] Workers[{}]", boundPort, workers);
+        return boundPort;
+    }
+
+    /**
+     * Stop listening, allowing a short time for requests in progress to complete
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(1);
+            executor.shutdown();
+            httpServer = null;
+            LOG.info("Server: Stopped. {}", getStatus());
+        }
+    }
+
+    public String getStatus() {
+        return String.format("Server: Requests (%s) Failed (%s)%s%s%s%s", requests.sum(), failures.sum(),
+                Tokens.NEWLINE_S, SchemaCache.getInstance().toString(),
+                Tokens.NEWLINE_S, SchemaResourceCache.getInstance().toString());
+    }
+
+    private void handleXML(HttpExchange exchange)
+            throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                send(exchange, 405, TEXT_CONTENT_TYPE, "POST the NVP content to " + XML_PATH);
+                return;
+            }
+            requests.increment();
+
+            // Read the NVP content
+            List<String> mappings;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+                mappings = reader.lines().collect(Collectors.toList());
+            }
+            NVPStringReader nvpReader = new NVPStringReader();
+            nvpReader.setMappings(mappings);
+
+            // Build the Bean, then create and validate the XML
+            byte[] xml;
+            StringWriter validationWriter = new StringWriter();
+            try {
+                Bean bean = api.createBean(nvpReader, new StringWriter());
+                Common.fatalAssertion((bean != null) && (bean.unwrap() != null), LOG, "Unable to create bean");
+                assert bean != null;
+                xml = api.createAndValidateXML(bean, validationWriter);
+            } catch (RuntimeException ex) {
+                failures.increment();
+                send(exchange, 400, TEXT_CONTENT_TYPE, Common.safeToString(ex.getMessage()));
+                return;
+            }
+
+            if (xml.length == 0) {
+                failures.increment();
+                send(exchange, 500, TEXT_CONTENT_TYPE, "Unable to create XML");
+                return;
+            }
+
+            addValidationHeaders(exchange.getResponseHeaders(), validationWriter.toString());
+            send(exchange, 200, XML_CONTENT_TYPE, xml);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStatus(HttpExchange exchange)
+            throws IOException {
+        try {
+            send(exchange, 200, TEXT_CONTENT_TYPE, getStatus());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * The validation results are one summary line followed by one line per message
+     */
+    private void addValidationHeaders(Headers headers, String validationResults) {
+        List<String> lines = new ArrayList<>();
+        for (String line : validationResults.split("\\r?\\n")) {
+            if (Common.notEmpty(line)) {
+                lines.add(line);
+            }
+        }
+        if (!lines.isEmpty()) {
+            headers.add(VALIDATION_SUMMARY_HEADER, lines.get(0));
+            lines.subList(1, lines.size()).forEach(line -> headers.add(VALIDATION_MESSAGE_HEADER, line));
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, contentType);
+        exchange.sendResponseHeaders(status, (body.length > 0) ? body.length : -1);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
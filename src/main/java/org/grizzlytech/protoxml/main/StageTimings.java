@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+/**
+ * Time spent in each stage of creating one XML document, and the bytes read and written
+ * <p>
+ * Not thread safe: each document is timed by its own instance.
+ */
+public class StageTimings {
+
+    public enum Stage {
+        /**
+         * Reading the NVP file and any files it includes
+         */
+        READ,
+        /**
+         * Building the Bean from the NVPs, excluding READ
+         */
+        BUILD,
+        /**
+         * Marshalling the Bean to XML, including the insertion of comments and the writing of the file
+         */
+        MARSHAL,
+        /**
+         * Validating the XML file against its schema, including the writing of the validation results
+         */
+        VALIDATE,
+        /**
+         * Marshalling the Bean to XML while validating it, when both are done in a single pass
+         * (Config.singlePassValidation). Recorded instead of MARSHAL and VALIDATE, as the two cannot be separated.
+         */
+        MARSHAL_VALIDATE
+    }
+
+    private final long[] nanos = new long[Stage.values().length];
+    private final boolean[] recorded = new boolean[Stage.values().length];
+    private long bytesIn = 0;
+    private long bytesOut = 0;
+
+    /**
+     * Add the time elapsed since start to the stage
+     *
+     * @param stage stage
+     * @param start value of System.nanoTime when the stage started
+     * @return the current System.nanoTime, which can be used as the start of the next stage
+     */
+    public long stop(Stage stage, long start) {
+        long now = System.nanoTime();
+        add(stage, now - start);
+        return now;
+    }
+
+    public void add(Stage stage, long elapsedNanos) {
+        nanos[stage.ordinal()] += elapsedNanos;
+        recorded[stage.ordinal()] = true;
+    }
+
+    /**
+     * @return true if the stage was timed, i.e. it applies to the document (a zero time may still be recorded)
+     */
+    public boolean isRecorded(Stage stage) {
+        return recorded[stage.ordinal()];
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (long stageNanos : nanos) {
+            total += stageNanos;
+        }
+        return total;
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn += bytes;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut += bytes;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            if (isRecorded(stage)) {
+                builder.append(String.format("%s (%.3f ms) ", stage, getNanos(stage) / 1e6));
+            }
+        }
+        builder.append(String.format("In (%s bytes) Out (%s bytes)", bytesIn, bytesOut));
+        return builder.toString();
+    }
+}
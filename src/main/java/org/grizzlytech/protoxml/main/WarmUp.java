@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import org.grizzlytech.protoxml.beans.Property;
+import org.grizzlytech.protoxml.beans.PropertyDictionary;
+import org.grizzlytech.protoxml.util.ClassUtil;
+import org.grizzlytech.protoxml.util.Common;
+import org.grizzlytech.protoxml.xml.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.annotation.XmlType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warm the shared caches for every doctype (element) registered by a set of ElementLists, so that the first
+ * document of each doctype does not pay for them on the request path.
+ * <p>
+ * For each doctype, in parallel on a fork-join pool: the schema is compiled (SchemaCache), the JAXBContext is
+ * created (XMLMarshaller), and a PropertyDictionary entry and ObjectFactory are created for every class
+ * reachable from the element class. Reachable classes are themselves introspected in parallel, and each class
+ * is introspected once, by whichever doctype reaches it first.
+ */
+public class WarmUp {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmUp.class);
+
+    private final int parallelism;
+
+    /**
+     * Classes already introspected (by any doctype)
+     */
+    private final Set<Class> visited = ConcurrentHashMap.newKeySet();
+
+    public WarmUp(int parallelism) {
+        Common.argumentAssertion(parallelism >= 1, LOG, "parallelism must be at least 1, not {}", parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Warm the caches for all doctypes registered by the ElementLists
+     *
+     * @param elementLists the ElementLists to warm
+     * @return the cost of each doctype, in registration order
+     */
+    public List<Cost> run(Collection<ElementList> elementLists) {
+        long start = System.nanoTime();
+
+        List<DocTypeTask> tasks = new ArrayList<>();
+        for (ElementList elementList : elementLists) {
+            for (ElementMetadata metadata : elementList.getElements()) {
+                tasks.add(new DocTypeTask(elementList, metadata));
+            }
+        }
+
+        List<Cost> costs = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+            tasks.forEach(t -> costs.add(t.join()));
+        } finally {
+            pool.shutdown();
+        }
+
+        costs.forEach(c -> LOG.info(c.toString()));
+        LOG.info("WarmUp: DocTypes ({}) Classes ({}) in {} ms", costs.size(), visited.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return costs;
+    }
+
+    /**
+     * Warm the caches for all ElementLists registered with, or indexed for, the ProtoAPI
+     *
+     * @param api the ProtoAPI whose ElementLists are to be warmed
+     * @return the cost of each doctype
+     */
+    public List<Cost> run(ProtoAPI api) {
+        api.registerIndexedElementLists();
+        return run(api.getRegisteredElementLists());
+    }
+
+    /**
+     * Compile the schema, create the JAXBContext and introspect the reachable classes of one doctype
+     */
+    private class DocTypeTask extends RecursiveTask<Cost> {
+        private final ElementList elementList;
+        private final ElementMetadata metadata;
+
+        DocTypeTask(ElementList elementList, ElementMetadata metadata) {
+            this.elementList = elementList;
+            this.metadata = metadata;
+        }
+
+        @Override
+        protected Cost compute() {
+            Cost cost = new Cost(metadata.getElementClass());
+            long start = System.nanoTime();
+
+            // Introspection runs alongside schema compilation and JAXBContext creation
+            ClassTask classes = new ClassTask(metadata.getElementClass(), cost.classes);
+            ForkJoinTask<Long> dictionaries = ForkJoinTask.adapt(() -> {
+                long begin = System.nanoTime();
+                classes.invoke();
+                return System.nanoTime() - begin;
+            }).fork();
+
+            try {
+                long begin = System.nanoTime();
+                if (metadata.getSchemaURL() != null) {
+                    SchemaCache.getInstance().getSchema(metadata.getSchemaURL(), elementList.getResourceResolver());
+                }
+                cost.schemaNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                XMLMarshaller.getContext(metadata.getElementClass());
+                cost.contextNanos = System.nanoTime() - begin;
+            } catch (Exception ex) {
+                fail(cost, ex);
+            }
+
+            // A class which cannot be introspected must not stop the other doctypes (or startup)
+            try {
+                cost.dictionaryNanos = dictionaries.join();
+            } catch (RuntimeException | LinkageError ex) {
+                fail(cost, ex);
+            }
+            cost.totalNanos = System.nanoTime() - start;
+            return cost;
+        }
+
+        private void fail(Cost cost, Throwable ex) {
+            if (cost.error == null) {
+                cost.error = Common.notEmpty(ex.getMessage()) ? ex.getMessage() : ex.toString();
+            }
+            LOG.warn("WarmUp: Failed for [{}]", metadata.getElementClass().getCanonicalName(), ex);
+        }
+    }
+
+    /**
+     * Introspect a class, then (in parallel) the classes of its properties not already visited
+     */
+    private class ClassTask extends RecursiveAction {
+        private final Class clazz;
+        private final AtomicInteger count;
+
+        ClassTask(Class clazz, AtomicInteger count) {
+            this.clazz = clazz;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (!visited.add(clazz)) {
+                return;
+            }
+            count.incrementAndGet();
+
+            Map<String, Property> properties = PropertyDictionary.getInstance().getPropertyMap(clazz);
+            if (clazz.isAnnotationPresent(XmlType.class)) {
+                XMLObjectFactory.getInstance().getElementQName(clazz, false);
+            }
+
+            List<ClassTask> children = new ArrayList<>();
+            for (Property property : properties.values()) {
+                addChild(children, property.isCollection() ? property.getValueParameterClass() :
+                        property.getValueClass());
+            }
+            invokeAll(children);
+        }
+
+        private void addChild(List<ClassTask> children, Class child) {
+            if (child != null && !child.isArray() && !child.isEnum() && !child.isPrimitive() &&
+                    child.getCanonicalName() != null && !ClassUtil.isCoreJavaClass(child) && !visited.contains(child)) {
+                children.add(new ClassTask(child, count));
+            }
+        }
+    }
+
+    /**
+     * The cost of warming one doctype
+     */
+    public static class Cost {
+        private final Class elementClass;
+        private final AtomicInteger classes = new AtomicInteger();
+        private long schemaNanos;
+        private long contextNanos;
+        private long dictionaryNanos;
+        private long totalNanos;
+        private String error;
+
+        private Cost(Class elementClass) {
+            this.elementClass = elementClass;
+        }
+
+        public Class getElementClass() {
+            return elementClass;
+        }
+
+        public long getSchemaNanos() {
+            return schemaNanos;
+        }
+
+        public long getContextNanos() {
+            return contextNanos;
+        }
+
+        public long getDictionaryNanos() {
+            return dictionaryNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the number of classes introspected for this doctype (excluding those reached first by another)
+         */
+        public int getClassCount() {
+            return classes.get();
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "WarmUp: [%s] %s in %.1f ms: Schema (%.1f ms) JAXB (%.1f ms) " +
+                            "Dictionary (%.1f ms, %s classes)", elementClass.getSimpleName(),
+                    isSuccess() ? "OK" : "FAILED " + error, totalNanos / 1e6, schemaNanos / 1e6,
+                    contextNanos / 1e6, dictionaryNanos / 1e6, getClassCount());
+        }
+    }
+}
@@ -31,9 +31,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -48,8 +48,8 @@ import static org.grizzlytech.protoxml.util.Tokens.CLASS_METHOD_DELIMITER_S;
  */
 public abstract class AbstractObjectFactory {
 
-    // Cache of Object Factories
-    protected static final Map<Class, Object> OBJECT_FACTORIES = new HashMap<>();
+    // Cache of Object Factories (shared by concurrent callers)
+    protected static final Map<Class, Object> OBJECT_FACTORIES = new ConcurrentHashMap<>();
     private static final Logger LOG = LoggerFactory.getLogger(AbstractObjectFactory.class);
 
     /**
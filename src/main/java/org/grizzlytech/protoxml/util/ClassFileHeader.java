@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.util;
+
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The identity of a class as declared in its class file: name, access flags, super class and interfaces.
+ * <p>
+ * Only the header of the class file is read (the constant pool and the fields that follow it), so candidate
+ * classes can be filtered by type without loading, linking or initialising them.
+ */
+public class ClassFileHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    // Constant pool tags, see JVMS 4.4
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final String className;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final int accessFlags;
+
+    private ClassFileHeader(String className, String superClassName, List<String> interfaceNames, int accessFlags) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.accessFlags = accessFlags;
+    }
+
+    /**
+     * Read the header of a class file. The stream is read no further than the list of interfaces.
+     *
+     * @param in stream positioned at the start of the class file
+     * @return the header
+     * @throws IOException if the stream cannot be read or is not a class file
+     */
+    public static ClassFileHeader read(InputStream in)
+            throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        data.readUnsignedShort(); // minor_version
+        data.readUnsignedShort(); // major_version
+
+        // Only the UTF8 entries and the Class entries (which index them) are retained
+        int count = data.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = data.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classes[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(data, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(data, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(data, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    // 8 byte constants occupy two entries in the pool
+                    skip(data, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at entry " + i);
+            }
+        }
+
+        int accessFlags = data.readUnsignedShort();
+        String className = getClassName(utf8, classes, data.readUnsignedShort());
+        String superClassName = getClassName(utf8, classes, data.readUnsignedShort());
+
+        int interfaceCount = data.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(getClassName(utf8, classes, data.readUnsignedShort()));
+        }
+
+        if (className == null) {
+            throw new IOException("Class file does not name its class");
+        }
+        return new ClassFileHeader(className, superClassName, Collections.unmodifiableList(interfaceNames),
+                accessFlags);
+    }
+
+    /**
+     * @return canonical name of the class, e.g., org.slf4j.Logger
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return canonical name of the super class, or null for java.lang.Object (and module-info)
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * @return canonical names of the interfaces directly implemented (or extended) by the class
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * @return true for abstract classes and interfaces, which cannot be instantiated
+     */
+    public boolean isAbstract() {
+        return (accessFlags & (ACC_ABSTRACT | ACC_INTERFACE)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return className;
+    }
+
+    private static String getClassName(String[] utf8, int[] classes, int index)
+            throws IOException {
+        if (index == 0) {
+            return null;
+        }
+        if (index >= classes.length || classes[index] == 0 || utf8[classes[index]] == null) {
+            throw new IOException("Invalid class reference " + index);
+        }
+        // Internal names use '/' as the package delimiter, e.g., org/slf4j/Logger
+        return utf8[classes[index]].replace(Tokens.JAR_ENTRY_DELIMITER, Tokens.PACKAGE_NAME_DELIMITER);
+    }
+
+    private static void skip(DataInputStream data, int length)
+            throws IOException {
+        data.readFully(new byte[length]);
+    }
+}
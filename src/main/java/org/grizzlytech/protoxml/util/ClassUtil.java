@@ -28,18 +28,22 @@ package org.grizzlytech.protoxml.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Predicate;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.grizzlytech.protoxml.util.Tokens.*;
 
@@ -50,6 +54,11 @@ public class ClassUtil {
 
     private static final Logger LOG = LoggerFactory.getLogger(ClassUtil.class);
 
+    /**
+     * Class file headers read from each jar, keyed by jar path and package path
+     */
+    private static final ConcurrentMap<String, JarHeaders> JAR_HEADERS = new ConcurrentHashMap<>();
+
     /**
      * @return all interfaces implemented by this and all parent classes
      */
@@ -81,36 +90,17 @@ public class ClassUtil {
             ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
             assert classLoader != null;
 
-            String path = packageName.replace(PACKAGE_NAME_DELIMITER, RESOURCE_PATH_DELIMITER);
-            Enumeration<URL> resources = classLoader.getResources(path);
-
             List<File> dirs = new ArrayList<>();
-            List<JarFile> jars = new ArrayList<>();
-
-            while (resources.hasMoreElements()) {
-                URL resource = resources.nextElement();
-                switch (resource.getProtocol()) {
-                    case URL_PROTOCOL_FILE:
-                        dirs.add(new File(resource.getFile()));
-                        break;
-                    case URL_PROTOCOL_JAR:
-                        // Retrieve the path of the jar removing
-                        // 1. the package information included after the path separator
-                        // 2. the Jar protocol prefix
-                        String jarPath = resource.getPath().split(JAR_PATH_SEPARATOR_S)[0]
-                                .replace(URL_PROTOCOL_FILE + URL_PROTOCOL_DELIMITER, "");
-                        jars.add(new JarFile(jarPath));
-                        break;
-                    default:
-                        LOG.info("Ignoring {}", resource.toString());
-                }
-            }
+            List<String> jarPaths = new ArrayList<>();
+            findPackageLocations(classLoader, packageName, dirs, jarPaths);
 
             for (File directory : dirs) {
                 classes.addAll(findClassesInDir(directory, packageName, classNameFilter));
             }
-            for (JarFile jarFile : jars) {
-                classes.addAll(findClassesInJar(jarFile, packageName, classNameFilter));
+            for (String jarPath : jarPaths) {
+                try (JarFile jarFile = new JarFile(jarPath)) {
+                    classes.addAll(findClassesInJar(jarFile, packageName, classNameFilter));
+                }
             }
         } catch (IOException ex) {
             Common.fatalException(ex, LOG, "Error creating class");
@@ -118,6 +108,41 @@ public class ClassUtil {
         return classes;
     }
 
+    /**
+     * Find the directories and jars that contain the given package
+     *
+     * @param classLoader the source of available resources
+     * @param packageName the base package
+     * @param dirs        populated with the matching directories
+     * @param jarPaths    populated with the paths of the matching jars
+     * @throws IOException if the resources cannot be enumerated
+     */
+    private static void findPackageLocations(ClassLoader classLoader, String packageName, List<File> dirs,
+                                             List<String> jarPaths)
+            throws IOException {
+        String path = packageName.replace(PACKAGE_NAME_DELIMITER, RESOURCE_PATH_DELIMITER);
+        Enumeration<URL> resources = classLoader.getResources(path);
+
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            switch (resource.getProtocol()) {
+                case URL_PROTOCOL_FILE:
+                    dirs.add(new File(resource.getFile()));
+                    break;
+                case URL_PROTOCOL_JAR:
+                    // Retrieve the path of the jar removing
+                    // 1. the package information included after the path separator
+                    // 2. the Jar protocol prefix
+                    String jarPath = resource.getPath().split(JAR_PATH_SEPARATOR_S)[0]
+                            .replace(URL_PROTOCOL_FILE + URL_PROTOCOL_DELIMITER, "");
+                    jarPaths.add(jarPath);
+                    break;
+                default:
+                    LOG.info("Ignoring {}", resource.toString());
+            }
+        }
+    }
+
     private static List<Class> findClassesInDir(File directory, String packageName, Predicate<String> classNameFilter)
             throws IOException {
         // Determine the rooPath which contains the classes
@@ -126,20 +151,22 @@ public class ClassUtil {
 
         // Can Walk record the relative descent? Code below needs to manually infer packageName
         // by taking the rootPath from the absolutePath of the parent directory
-        return Files.walk(directory.toPath())
-                // Map the Path to File
-                .map(Path::toFile)
-                // Filter out files that are not classes
-                .filter(x -> x.getName().endsWith(CLASS_FILE_SUFFIX))
-                // Retrieve the canonical classname and apply the classnameFilter
-                .map(x -> getClassName(x, getPackageName(x, rootPath)))
-                .filter(classNameFilter)
-                // Additionally filter out inner classes
-                .filter(x -> x.indexOf(INNER_CLASS_DELIMITER) == -1)
-                // Create and collect the corresponding classes
-                .map(ClassUtil::getClassElseNull)
-                .filter(Objects::nonNull)
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths
+                    // Map the Path to File
+                    .map(Path::toFile)
+                    // Filter out files that are not classes
+                    .filter(x -> x.getName().endsWith(CLASS_FILE_SUFFIX))
+                    // Retrieve the canonical classname and apply the classnameFilter
+                    .map(x -> getClassName(x, getPackageName(x, rootPath)))
+                    .filter(classNameFilter)
+                    // Additionally filter out inner classes
+                    .filter(x -> x.indexOf(INNER_CLASS_DELIMITER) == -1)
+                    // Create and collect the corresponding classes
+                    .map(ClassUtil::getClassElseNull)
+                    .filter(Objects::nonNull)
                 .collect(Collectors.toCollection(ArrayList::new));
+        }
     }
 
     private static String getClassName(File classFile, String packageName) {
@@ -233,6 +260,9 @@ public class ClassUtil {
 
     /**
      * Find all classes whose name matches a predicate and that implements a given interface
+     * <p>
+     * Candidates are filtered using their class file headers, so only the matching classes are loaded (and none
+     * are initialised). Supertypes declared outside of the package are loaded to complete the check.
      *
      * @param packageName     the package to start searching from
      * @param classNameFilter predicate to filter class names, typically the interface name
@@ -243,21 +273,174 @@ public class ClassUtil {
                                                  Class interfaceFilter) {
         List<Class> list = new ArrayList<>();
 
-        List<Class> candidates = ClassUtil.getClasses(packageName, classNameFilter);
-        for (Class c : candidates) {
-            // Skip abstract classes as they cannot be instantiated
-            if (Modifier.isAbstract(c.getModifiers())) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        assert classLoader != null;
+
+        Map<String, ClassFileHeader> headers = getClassHeaders(classLoader, packageName);
+        Map<String, Boolean> assignable = new HashMap<>();
+        for (ClassFileHeader header : headers.values()) {
+            String className = header.getClassName();
+            // Skip inner classes, abstract classes and interfaces as they cannot be instantiated
+            if (!classNameFilter.test(className) || className.indexOf(INNER_CLASS_DELIMITER) != -1 ||
+                    header.isAbstract()) {
                 continue;
             }
-            // Verify the class does indeed implement the interface before attempting to add it
-            List<Class> interfaces = ClassUtil.getAllInterfaces(c);
-            if (interfaces.contains(interfaceFilter)) {
-                list.add(c);
+            // Verify the class does indeed implement the interface before attempting to load it
+            if (isAssignable(className, interfaceFilter, headers, assignable, classLoader)) {
+                Class c = getClassElseNull(className, classLoader);
+                if (c != null) {
+                    list.add(c);
+                }
             }
         }
         return list;
     }
 
+    /**
+     * Read the class file headers of all classes in the given package and subpackages
+     *
+     * @param classLoader the source of available classes
+     * @param packageName the base package
+     * @return headers keyed by class name, in classpath order
+     */
+    static Map<String, ClassFileHeader> getClassHeaders(ClassLoader classLoader, String packageName) {
+        Map<String, ClassFileHeader> headers = new LinkedHashMap<>();
+        try {
+            List<File> dirs = new ArrayList<>();
+            List<String> jarPaths = new ArrayList<>();
+            findPackageLocations(classLoader, packageName, dirs, jarPaths);
+
+            for (File directory : dirs) {
+                findClassHeadersInDir(directory).forEach(h -> headers.putIfAbsent(h.getClassName(), h));
+            }
+            for (String jarPath : jarPaths) {
+                findClassHeadersInJar(new File(jarPath), packageName)
+                        .forEach(h -> headers.putIfAbsent(h.getClassName(), h));
+            }
+        } catch (IOException ex) {
+            Common.fatalException(ex, LOG, "Error scanning classes");
+        }
+        return headers;
+    }
+
+    private static List<ClassFileHeader> findClassHeadersInDir(File directory)
+            throws IOException {
+        List<ClassFileHeader> headers = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.toString().endsWith(CLASS_FILE_SUFFIX)) {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                        addClassHeader(headers, in, path.toString());
+                    }
+                }
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Jars do not change whilst the application is running (at least not without changing their size or
+     * modification time), hence the headers read from each jar are cached
+     */
+    private static List<ClassFileHeader> findClassHeadersInJar(File jar, String packageName)
+            throws IOException {
+        String entryPath = packageName.replace(PACKAGE_NAME_DELIMITER, JAR_ENTRY_DELIMITER);
+        String key = jar.getAbsolutePath() + JAR_PATH_SEPARATOR + entryPath;
+
+        JarHeaders cached = JAR_HEADERS.get(key);
+        if (cached != null && cached.isCurrent(jar)) {
+            return cached.headers;
+        }
+
+        // Stat the jar before reading it, so a jar replaced during the scan is re-read next time
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+
+        List<ClassFileHeader> headers = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.contains(entryPath) && name.endsWith(CLASS_FILE_SUFFIX)) {
+                    try (InputStream in = new BufferedInputStream(jarFile.getInputStream(entry))) {
+                        addClassHeader(headers, in, jar + JAR_PATH_SEPARATOR_S + name);
+                    }
+                }
+            }
+        }
+
+        JAR_HEADERS.put(key, new JarHeaders(length, lastModified, Collections.unmodifiableList(headers)));
+        return headers;
+    }
+
+    private static void addClassHeader(List<ClassFileHeader> headers, InputStream in, String location) {
+        try {
+            headers.add(ClassFileHeader.read(in));
+        } catch (IOException ex) {
+            LOG.warn("Cannot read class file [{}]. Error [{}]", location, ex.getMessage());
+        }
+    }
+
+    /**
+     * Determine whether the named class is assignable to the target type, walking the class file headers
+     * of its supertypes, and only loading those supertypes for which there is no header
+     *
+     * @param className   name of the class to test
+     * @param target      the type to be tested against
+     * @param headers     available class file headers
+     * @param assignable  results for the supertypes already visited
+     * @param classLoader used to load supertypes without a header
+     * @return true if className is (or extends or implements) target
+     */
+    private static boolean isAssignable(String className, Class target, Map<String, ClassFileHeader> headers,
+                                        Map<String, Boolean> assignable, ClassLoader classLoader) {
+        if (className == null) {
+            return false;
+        }
+        if (className.equals(target.getName())) {
+            return true;
+        }
+        Boolean result = assignable.get(className);
+        if (result == null) {
+            ClassFileHeader header = headers.get(className);
+            if (header == null) {
+                Class c = getClassElseNull(className, classLoader);
+                result = (c != null) && target.isAssignableFrom(c);
+            } else {
+                result = isAssignable(header.getSuperClassName(), target, headers, assignable, classLoader) ||
+                        header.getInterfaceNames().stream()
+                                .anyMatch(x -> isAssignable(x, target, headers, assignable, classLoader));
+            }
+            assignable.put(className, result);
+        }
+        return result;
+    }
+
+    /**
+     * Load, without initialising, a class
+     *
+     * @param className   name of the class to lookup
+     * @param classLoader the loader to use
+     * @return the corresponding Class object or null (on error)
+     */
+    private static Class getClassElseNull(String className, ClassLoader classLoader) {
+        Class result = null;
+        try {
+            result = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            LOG.error("Cannot load class [{}]. Error [{}]", className, ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of jar scans currently cached
+     */
+    static int getJarHeaderCacheSize() {
+        return JAR_HEADERS.size();
+    }
+
     public static boolean isCoreJavaClass(Class clazz) {
         return clazz.getCanonicalName().startsWith("java") || clazz.isPrimitive();
     }
@@ -297,4 +480,23 @@ public class ClassUtil {
                 .filter(attributeFilter)
                 .collect(Collectors.toCollection(ArrayList::new));
     }
+
+    /**
+     * Headers read from a jar, and the size and modification time of the jar when read
+     */
+    private static class JarHeaders {
+        private final long length;
+        private final long lastModified;
+        private final List<ClassFileHeader> headers;
+
+        JarHeaders(long length, long lastModified, List<ClassFileHeader> headers) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.headers = headers;
+        }
+
+        boolean isCurrent(File jar) {
+            return jar.length() == length && jar.lastModified() == lastModified;
+        }
+    }
 }
@@ -28,21 +28,26 @@ package org.grizzlytech.protoxml.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.Temporal;
 import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQuery;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Helper class to select the appropriate DateTimeFormatter for a given formatted date/time string
  * <p>
  * The DateTimeFormat also includes the correct Temporal class to use (LocalDate, LocalDateTime, OffsetDateTime,
  * Instant) in association with a given date/time type.
+ * <p>
+ * As the same literals tend to be repeated throughout a batch of files, each thread remembers the Temporals it
+ * most recently parsed (see setCacheSize). Temporals are immutable, so may be shared.
  */
 public class DateTimeFormat {
 
@@ -50,6 +55,24 @@ public class DateTimeFormat {
 
     private static final Map<String, DateTimeFormat> FORMAT_MAP = new HashMap<>();
 
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final char DIGIT_MASK = 'n';
+    private static final String DIGIT_CHARS = "YMDhmsu";
+
+    private static volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * Recently parsed literals (least recently used first), confined to the thread that created them
+     */
+    private static final ThreadLocal<LinkedHashMap<String, Temporal>> PARSED =
+            ThreadLocal.withInitial(() -> new LinkedHashMap<String, Temporal>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Temporal> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
     static {
         /*
          * Register formatter classes together with their masks
@@ -71,7 +94,7 @@ public class DateTimeFormat {
     private String mask;
     private DateTimeFormatter dateTimeFormatter;
     private Class<? extends Temporal> temporalClass;
-    private Method fromMethod;
+    private TemporalQuery<Temporal> fromQuery;
     private String description;
     private String example;
 
@@ -86,13 +109,26 @@ public class DateTimeFormat {
 
         // Cache the from method of LocalDate, LocalDateTime or Instant to build the Temporal
         try {
-            this.fromMethod = this.temporalClass.getDeclaredMethod("from", TemporalAccessor.class);
-        } catch (NoSuchMethodException ex) {
+            MethodHandle from = MethodHandles.publicLookup()
+                    .findStatic(temporalClass, "from", MethodType.methodType(temporalClass, TemporalAccessor.class))
+                    .asType(MethodType.methodType(Temporal.class, TemporalAccessor.class));
+            this.fromQuery = accessor -> invokeFrom(from, accessor);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
             throw new IllegalArgumentException("Temporal Class " + Common.safeToName(temporalClass) +
                     " does not implement the 'from' method");
         }
     }
 
+    private static Temporal invokeFrom(MethodHandle from, TemporalAccessor accessor) {
+        try {
+            return (Temporal) from.invokeExact(accessor);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new DateTimeException(ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Parse a string into a Temporal (e.g., LocalDate etc.)
      *
@@ -100,27 +136,46 @@ public class DateTimeFormat {
      * @return the Temporal
      */
     public static Temporal parse(String value) {
-        Temporal result = null;
-        DateTimeFormat dtf = null;
-        try {
-            // Deduce the DateTimeFormat and attempt to parse the value into a TemporalAccessor
-            dtf = getFormat(value);
-            TemporalAccessor accessor = dtf.getDateTimeFormatter().parse(value);
-            // Use the from method of LocalDate, LocalDateTime or Instant to build the Temporal
-            result = (Temporal) dtf.fromMethod.invoke(null, accessor);
-        } catch (IllegalAccessException ex) {
-            Common.fatalException(ex, LOG, "Unable to invoke from() on {}", Common.safeToName(dtf.getTemporalClass()));
-        } catch (InvocationTargetException | DateTimeException ex) {
-            String description = (dtf != null) ? dtf.getDescription() : "null";
-            Class temporalClass = (dtf != null) ? dtf.getTemporalClass() : null;
-            throw new IllegalArgumentException(Common.concatenate("Unable to parse [", value, "] using [",
-                    description, "] into [", Common.safeToName(temporalClass), "]: ",
-                    ex.getCause().getMessage()));
+        Map<String, Temporal> parsed = (cacheSize > 0) ? PARSED.get() : null;
+        Temporal result = (parsed != null) ? parsed.get(value) : null;
+        if (result == null) {
+            DateTimeFormat dtf = null;
+            try {
+                // Deduce the DateTimeFormat and parse the value, using the from method of LocalDate,
+                // LocalDateTime or Instant to build the Temporal
+                dtf = getFormat(value);
+                result = dtf.getDateTimeFormatter().parse(value, dtf.fromQuery);
+            } catch (DateTimeException ex) {
+                String description = (dtf != null) ? dtf.getDescription() : "null";
+                Class temporalClass = (dtf != null) ? dtf.getTemporalClass() : null;
+                throw new IllegalArgumentException(Common.concatenate("Unable to parse [", value, "] using [",
+                        description, "] into [", Common.safeToName(temporalClass), "]: ",
+                        (ex.getCause() != null) ? ex.getCause().getMessage() : ex.getMessage()));
+            }
+            if (parsed != null) {
+                parsed.put(value, result);
+            }
         }
         //LOG.debug("Converted {} to {}", value, result);
         return result;
     }
 
+    /**
+     * @return the number of recently parsed literals remembered by each thread
+     */
+    public static int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the number of recently parsed literals remembered by each thread, or 0 to remember none
+     */
+    public static void setCacheSize(int size) {
+        Common.argumentAssertion(size >= 0, LOG, "size must not be negative, not {}", size);
+        cacheSize = size;
+        PARSED.get().clear();
+    }
+
     /**
      * Get the DateTimeFormat that corresponds to the formatted date/time string
      *
@@ -144,13 +199,17 @@ public class DateTimeFormat {
     }
 
     private static String digitMask(String text) {
-        final String DIGIT_MASK = "n";
-        final String DIGIT_CHARS = "YMDhmsu";
-
-        return text.chars().mapToObj(c -> (char) c)
-                .map(c -> ((c == '+') ? '-' : c)) // map plus (+) to minus (-)
-                .map(c -> DIGIT_CHARS.indexOf(c) >= 0 || Character.isDigit(c) ? DIGIT_MASK : String.valueOf(c))
-                .collect(Collectors.joining());
+        char[] mask = new char[text.length()];
+        for (int i = 0; i < mask.length; i++) {
+            char c = text.charAt(i);
+            if (c == '+') {
+                c = '-'; // map plus (+) to minus (-)
+            } else if ((c >= '0' && c <= '9') || DIGIT_CHARS.indexOf(c) >= 0 || Character.isDigit(c)) {
+                c = DIGIT_MASK;
+            }
+            mask[i] = c;
+        }
+        return new String(mask);
     }
 
     public String getFormat() {
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.util;
+
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An interned step name of a QualifiedPath, together with its upper case (case insensitive) form and hashes.
+ * <p>
+ * Paths are made of a small vocabulary of names repeated many times over, so each name is interned once and the
+ * folded form computed once. Lookups from a region of the text being parsed neither lock nor allocate. Interning
+ * stops at MAX_INTERNED names, beyond which (unexpected) names are created afresh.
+ */
+public final class PathName {
+
+    static final int MAX_INTERNED = 1 << 16;
+
+    private static final Object LOCK = new Object();
+
+    /**
+     * Hash table of (immutable) chains of PathNames, replaced when resized
+     */
+    private static volatile AtomicReferenceArray<Node> table = new AtomicReferenceArray<>(1024);
+
+    private static int count = 0; // guarded by LOCK
+
+    private final String name;
+    private final String folded;
+    private final int foldedHash;
+
+    private PathName(String name) {
+        this.name = name;
+        this.folded = name.toUpperCase();
+        this.foldedHash = folded.hashCode();
+    }
+
+    /**
+     * @param name name to intern, may be null
+     * @return the interned PathName (null if name is null)
+     */
+    public static PathName of(String name) {
+        return (name != null) ? of(name, 0, name.length()) : null;
+    }
+
+    /**
+     * @param text  text containing the name
+     * @param begin index of the first char of the name
+     * @param end   index after the last char of the name
+     * @return the interned PathName
+     */
+    public static PathName of(String text, int begin, int end) {
+        int hash = 0;
+        for (int i = begin; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        AtomicReferenceArray<Node> buckets = table;
+        PathName found = find(buckets.get(hash & (buckets.length() - 1)), hash, text, begin, end);
+        return (found != null) ? found : intern(hash, text, begin, end);
+    }
+
+    private static PathName find(Node chain, int hash, String text, int begin, int end) {
+        int length = end - begin;
+        for (Node node = chain; node != null; node = node.next) {
+            String candidate = node.value.name;
+            if (node.hash == hash && candidate.length() == length &&
+                    candidate.regionMatches(0, text, begin, length)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    private static PathName intern(int hash, String text, int begin, int end) {
+        String name = (begin == 0 && end == text.length()) ? text : text.substring(begin, end);
+        synchronized (LOCK) {
+            AtomicReferenceArray<Node> buckets = table;
+            int bucket = hash & (buckets.length() - 1);
+            Node chain = buckets.get(bucket);
+            PathName found = find(chain, hash, text, begin, end);
+            if (found != null) {
+                return found;
+            }
+            PathName created = new PathName(name);
+            if (count < MAX_INTERNED) {
+                buckets.set(bucket, new Node(hash, created, chain));
+                if (++count > buckets.length()) {
+                    resize(buckets);
+                }
+            }
+            return created;
+        }
+    }
+
+    private static void resize(AtomicReferenceArray<Node> buckets) {
+        AtomicReferenceArray<Node> resized = new AtomicReferenceArray<>(buckets.length() * 2);
+        for (int i = 0; i < buckets.length(); i++) {
+            for (Node node = buckets.get(i); node != null; node = node.next) {
+                int bucket = node.hash & (resized.length() - 1);
+                resized.set(bucket, new Node(node.hash, node.value, resized.get(bucket)));
+            }
+        }
+        table = resized;
+    }
+
+    static int size() {
+        synchronized (LOCK) {
+            return count;
+        }
+    }
+
+    /**
+     * @return the name, as provided
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the upper case name, for case insensitive comparison
+     */
+    public String getFolded() {
+        return folded;
+    }
+
+    public int getFoldedHash() {
+        return foldedHash;
+    }
+
+    /**
+     * @return true if the names are equal, optionally ignoring case
+     */
+    public boolean matches(PathName other, boolean caseSensitive) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null) {
+            return false;
+        }
+        return caseSensitive ? name.equals(other.name) :
+                (foldedHash == other.foldedHash && folded.equals(other.folded));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static class Node {
+        private final int hash;
+        private final PathName value;
+        private final Node next;
+
+        Node(int hash, PathName value, Node next) {
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
@@ -27,6 +27,13 @@ package org.grizzlytech.protoxml.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A path of named (and optionally indexed) steps, e.g. "apple.banana[2].pear".
+ * <p>
+ * Step names are interned PathNames, and equality and hashing compare the steps directly (see isCaseSensitive and
+ * getComparableIndex), with the hash cached until the path is changed. Paths may therefore be used as map keys
+ * without building strings. The comparable value (a string) is built only for ordering and sub path matching.
+ */
 @SuppressWarnings("unchecked")
 public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
 
@@ -41,14 +48,19 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
     protected String path = null;
 
     /**
-     * a value computed on the path which is used for comparison, equality and hashing
+     * a value computed on the path which is used for ordering and sub path matching
      */
     protected String comparableValue = null;
 
+    /**
+     * the structural hash of the path, 0 until computed
+     */
+    private int hash = 0;
+
     /**
      * the component names of the path
      */
-    protected String[] names;
+    protected PathName[] names;
 
     /**
      * the indices of the names
@@ -199,16 +211,21 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
     }
 
     final public String getLastName() {
-        return this.names[lastStep()];
+        return getName(lastStep());
     }
 
     final public String getName(int step) {
+        PathName name = this.names[step];
+        return (name != null) ? name.getName() : null;
+    }
+
+    final public PathName getPathName(int step) {
         return this.names[step];
     }
 
     @SuppressWarnings("UnusedReturnValue")
     final public <P extends QualifiedPath> P setName(int step, String value) {
-        this.names[step] = value;
+        this.names[step] = PathName.of(value);
         onChange();
         return (P) this;
     }
@@ -234,6 +251,7 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
     final protected void onChange() {
         this.path = null;
         this.comparableValue = null;
+        this.hash = 0;
     }
 
     final public String getComparableValue() {
@@ -245,13 +263,21 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
 
     @Override
     final public int hashCode() {
-        //LOG.info("Getting hash for {}->{}->{}", this, getComparableValue(), getComparableValue().hashCode());
-        return getComparableValue().hashCode();
+        int result = this.hash;
+        if (result == 0) {
+            boolean caseSensitive = isCaseSensitive();
+            for (int step = 0; step < this.names.length; step++) {
+                PathName name = this.names[step];
+                int nameHash = (name == null) ? 0 : caseSensitive ? name.getName().hashCode() : name.getFoldedHash();
+                result = 31 * (31 * result + nameHash) + getComparableIndex(this.indices[step]);
+            }
+            this.hash = (result != 0) ? result : 1;
+        }
+        return this.hash;
     }
 
     @Override
     final public boolean equals(Object obj) {
-        //LOG.info("Comparing {} and {}", this, obj);
         if (obj == this) {
             return true;
         }
@@ -260,7 +286,56 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
         }
 
         QualifiedPath other = (QualifiedPath) obj;
-        return Common.safeEquals(this.getComparableValue(), other.getComparableValue());
+        if (this.names.length != other.names.length || hashCode() != other.hashCode()) {
+            return false;
+        }
+        boolean caseSensitive = isCaseSensitive();
+        for (int step = 0; step < this.names.length; step++) {
+            if (getComparableIndex(this.indices[step]) != getComparableIndex(other.indices[step])) {
+                return false;
+            }
+            PathName name = this.names[step];
+            if ((name == null) ? (other.names[step] != null) : !name.matches(other.names[step], caseSensitive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Override to compare names ignoring case, in line with computeComparableValue
+     *
+     * @return true if step names are compared case sensitively
+     */
+    protected boolean isCaseSensitive() {
+        return true;
+    }
+
+    /**
+     * Override to equate indices, in line with computeComparableValue (e.g., NO_INDEX with 0)
+     *
+     * @param index index of a step
+     * @return the index to compare
+     */
+    protected int getComparableIndex(int index) {
+        return index;
+    }
+
+    /**
+     * Append an index padded to 3 wide (e.g., 001), as per String.format("%03d")
+     *
+     * @param builder destination
+     * @param index   index to append
+     * @return the builder
+     */
+    protected static StringBuilder appendPaddedIndex(StringBuilder builder, int index) {
+        if (index < 0) {
+            return builder.append(String.format("%03d", index));
+        }
+        if (index < 100) {
+            builder.append((index < 10) ? "00" : "0");
+        }
+        return builder.append(index);
     }
 
     public boolean startsWith(QualifiedPath other) {
@@ -338,8 +413,9 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
     public void copy(int step, QualifiedPath replacement, int replacementStep) {
         assert step >= 0 && step <= lastStep();
         assert replacementStep >= 0 && replacementStep <= replacement.lastStep();
-        setName(step, replacement.getName(replacementStep));
-        setIndex(step, replacement.getIndex(replacementStep));
+        this.names[step] = replacement.names[replacementStep];
+        this.indices[step] = replacement.indices[replacementStep];
+        onChange();
     }
 
     /**
@@ -377,15 +453,59 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
      */
     protected void allocate(int length) {
         assert length > 0;
-        this.names = new String[length];
+        this.names = new PathName[length];
         this.indices = new int[length];
     }
 
     protected void parsePath(String path) {
-        parsePath(path, splitRegex());
+        // Scan the path in a single pass, splitting on the delimiter as per String#split
+        char delimiter = pathDelimiter();
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == delimiter) {
+            end--; // trailing empty steps are removed
+        }
+        int length = (end > 0 || path.isEmpty()) ? 1 : 0;
+        for (int i = 0; i < end; i++) {
+            if (path.charAt(i) == delimiter) {
+                length++;
+            }
+        }
+
+        // Create the arrays
+        allocate(length);
+
+        // Populate the path and check for indices
+        int begin = 0;
+        for (int step = 0; step < length; step++) {
+            int segmentEnd = begin;
+            int LB = -1;
+            int RB = -1;
+            for (; segmentEnd < end; segmentEnd++) {
+                char ch = path.charAt(segmentEnd);
+                if (ch == delimiter) {
+                    break;
+                } else if (ch == CH_LB && LB < 0) {
+                    LB = segmentEnd;
+                } else if (ch == CH_RB && RB < 0) {
+                    RB = segmentEnd;
+                }
+            }
+            if (LB >= 0 && RB > LB) {
+                this.names[step] = PathName.of(path, begin, LB);
+                this.indices[step] = parseIndex(path, LB + 1, RB, begin, segmentEnd);
+            } else {
+                this.names[step] = PathName.of(path, begin, segmentEnd);
+                this.indices[step] = NO_INDEX;
+            }
+            begin = segmentEnd + 1;
+        }
     }
 
     protected void parsePath(String path, String splitRegex) {
+        if (splitRegex.equals(splitRegex())) {
+            parsePath(path);
+            return;
+        }
         String[] components = path.split(splitRegex);
 
         // Create the arrays
@@ -398,19 +518,40 @@ public class QualifiedPath implements Comparable<QualifiedPath>, Cloneable {
             int LB = segment.indexOf(CH_LB);
             int RB = segment.indexOf(CH_RB);
             if (LB >= 0 && RB > LB) {
-                this.names[step] = segment.substring(0, LB);
-                String index = segment.substring(LB + 1, RB);
+                this.names[step] = PathName.of(segment, 0, LB);
+                this.indices[step] = parseIndex(segment, LB + 1, RB, 0, segment.length());
+            } else {
+                this.names[step] = PathName.of(segment);
+                this.indices[step] = NO_INDEX;
+            }
+        }
+    }
+
+    /**
+     * Parse the digits between begin and end, deferring to Integer#parseInt for anything else (e.g., a sign)
+     */
+    private static int parseIndex(String path, int begin, int end, int segmentBegin, int segmentEnd) {
+        int index = 0;
+        for (int i = begin; i < end; i++) {
+            char ch = path.charAt(i);
+            if (ch < '0' || ch > '9' || i - begin >= 9) {
+                String text = path.substring(begin, end);
                 try {
-                    this.indices[step] = Integer.parseInt(index);
+                    return Integer.parseInt(text);
                 } catch (NumberFormatException nfe) {
-                    LOG.error("Could not parse \"{}\" within \"{}\" into an integer", index, segment);
+                    LOG.error("Could not parse \"{}\" within \"{}\" into an integer", text,
+                            path.substring(segmentBegin, segmentEnd));
                     throw nfe;
                 }
-            } else {
-                this.names[step] = segment;
-                this.indices[step] = NO_INDEX;
             }
+            index = index * 10 + (ch - '0');
+        }
+        if (begin == end) {
+            // As per Integer#parseInt("")
+            LOG.error("Could not parse \"\" within \"{}\" into an integer", path.substring(segmentBegin, segmentEnd));
+            throw new NumberFormatException("For input string: \"\"");
         }
+        return index;
     }
 
     /**
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.util;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Index of resource paths by (case-insensitive) file name, used to resolve a resource name to its path.
+ * <p>
+ * A name is first looked up by its file name. Names whose file name is not unique are narrowed by their path
+ * (e.g., generated/employee.xsd), and names that are not file names (e.g., a fragment of a name) fall back to a
+ * scan for paths that contain the name. Either is only performed once per name. A name is only resolved when
+ * it matches a single path; an ambiguous name is logged and not resolved. The index is immutable once built,
+ * and so may be shared by any number of threads.
+ */
+public class ResourceIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceIndex.class);
+
+    /**
+     * Marks a name which does not match any path (as ConcurrentHashMap does not permit null values)
+     */
+    private static final String NOT_FOUND = "";
+
+    private final List<String> paths;
+
+    /**
+     * Upper case paths, in the same order as paths
+     */
+    private final List<String> upperPaths;
+
+    /**
+     * Paths keyed by their upper case file name, in path order
+     */
+    private final Map<String, List<String>> pathsByName = new HashMap<>();
+
+    /**
+     * Resolutions of names without a unique file name, by upper case resource name
+     */
+    private final ConcurrentMap<String, String> resolved = new ConcurrentHashMap<>();
+
+    public ResourceIndex(List<String> paths) {
+        this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+        this.upperPaths = this.paths.stream().map(String::toUpperCase).collect(Collectors.toList());
+
+        for (int i = 0; i < paths.size(); i++) {
+            String upperPath = upperPaths.get(i);
+            pathsByName.computeIfAbsent(getFilename(upperPath), k -> new ArrayList<>(1)).add(this.paths.get(i));
+        }
+    }
+
+    /**
+     * Return the path of a named resource
+     *
+     * @param resourceName the resource to find, typically a file name (e.g., employee.xsd), optionally
+     *                     qualified by a path (e.g., generated/employee.xsd)
+     * @return the matching path else null
+     */
+    public String getPath(String resourceName) {
+        String upperName = resourceName.toUpperCase();
+
+        // Fast path: the file name is known, and unique
+        List<String> candidates = pathsByName.get(getFilename(upperName));
+        if (candidates != null && candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        String path = resolved.computeIfAbsent(upperName, this::resolve);
+        return (path != NOT_FOUND) ? path : null;
+    }
+
+    /**
+     * @return all indexed paths, in their original order
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    private String resolve(String upperName) {
+        List<String> candidates = pathsByName.get(getFilename(upperName));
+        if (candidates != null) {
+            if (upperName.equals(getFilename(upperName))) {
+                return getUnique(upperName, candidates);
+            }
+            // Choose the candidates whose path ends with the qualified name
+            String qualifiedName = normalize(upperName);
+            String qualifiedSuffix = qualifiedName.startsWith("/") ? qualifiedName : "/" + qualifiedName;
+            List<String> matches = new ArrayList<>(1);
+            for (String candidate : candidates) {
+                String upperCandidate = normalize(candidate.toUpperCase());
+                if (upperCandidate.equals(qualifiedName) || upperCandidate.endsWith(qualifiedSuffix)) {
+                    matches.add(candidate);
+                }
+            }
+            if (!matches.isEmpty()) {
+                return getUnique(upperName, matches);
+            }
+        }
+
+        // Fallback: scan the paths for one containing the name
+        List<String> matches = new ArrayList<>(1);
+        for (int i = 0; i < upperPaths.size(); i++) {
+            if (upperPaths.get(i).contains(upperName)) {
+                matches.add(paths.get(i));
+            }
+        }
+        return getUnique(upperName, matches);
+    }
+
+    private static String getUnique(String upperName, List<String> matches) {
+        if (matches.size() > 1) {
+            LOG.warn("Resource name [{}] is ambiguous, matching {}", upperName, matches);
+            return NOT_FOUND;
+        }
+        return matches.isEmpty() ? NOT_FOUND : matches.get(0);
+    }
+
+    /**
+     * Paths may use either separator, depending on whether they were found in a jar or a directory
+     */
+    private static String getFilename(String path) {
+        int delimiter = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(delimiter + 1);
+    }
+
+    private static String normalize(String path) {
+        return path.replace('\\', '/');
+    }
+}
@@ -43,6 +43,7 @@ import java.util.function.Predicate;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.grizzlytech.protoxml.util.Tokens.*;
 
@@ -66,9 +67,24 @@ public class ResourceUtil {
      * @return the URL for the resource
      */
     public static URL getResourceURLByName(ClassLoader classLoader, String resourceName, List<String> resourcePaths) {
+        return getResourceURL(classLoader, resourceName, getResourcePath(resourceName, resourcePaths));
+    }
+
+    /**
+     * Get a resourceURL using the resourceName (e.g., employee.xsd), found using a ResourceIndex.
+     *
+     * @param classLoader   the source of available resources
+     * @param resourceName  the resource to find
+     * @param resourceIndex index of the available (relative) paths
+     * @return the URL for the resource
+     */
+    public static URL getResourceURLByName(ClassLoader classLoader, String resourceName, ResourceIndex resourceIndex) {
+        return getResourceURL(classLoader, resourceName, resourceIndex.getPath(resourceName));
+    }
+
+    private static URL getResourceURL(ClassLoader classLoader, String resourceName, String resourcePath) {
         URL resourceURL = null;
 
-        String resourcePath = getResourcePath(resourceName, resourcePaths);
         if (resourcePath == null) {
             LOG.error("Could not locate resource {} in resourcePath list", resourceName);
         } else {
@@ -112,7 +128,7 @@ public class ResourceUtil {
             Enumeration<URL> resourceURLs = classLoader.getResources(searchPath.toString());
 
             List<File> dirs = new ArrayList<>();
-            List<JarFile> jars = new ArrayList<>();
+            List<String> jarPaths = new ArrayList<>();
 
             while (resourceURLs.hasMoreElements()) {
                 URL resourceURL = resourceURLs.nextElement();
@@ -127,7 +143,7 @@ public class ResourceUtil {
                         // 2. the Jar protocol prefix
                         String jarPath = resourceURL.getPath().split(JAR_PATH_SEPARATOR_S)[0]
                                 .replace(URL_PROTOCOL_FILE + URL_PROTOCOL_DELIMITER, "");
-                        jars.add(new JarFile(jarPath));
+                        jarPaths.add(jarPath);
                         break;
                     default:
                         LOG.info("Ignoring {}", resourceURL.toString());
@@ -136,8 +152,10 @@ public class ResourceUtil {
             for (File directory : dirs) {
                 resources.addAll(findResourcesInDir(directory, searchPath, extensionFilter));
             }
-            for (JarFile jarFile : jars) {
-                resources.addAll(findResourcesInJar(jarFile, extensionFilter));
+            for (String jarPath : jarPaths) {
+                try (JarFile jarFile = new JarFile(jarPath)) {
+                    resources.addAll(findResourcesInJar(jarFile, extensionFilter));
+                }
             }
         } catch (IOException ex) {
             LOG.error("PROBLEM", ex);
@@ -168,11 +186,13 @@ public class ResourceUtil {
                 (p, a) -> extensionFilter.test(p.getName(p.getNameCount() - 1).toString());
         final int MAX_DEPTH = 10; // assume 10 levels beneath searchPath is sufficient!
 
-        return Files.find(directory.toPath(), MAX_DEPTH, MATCHER)
-                // Determine the relative path of the resource vs the base path
-                .map(basePath::relativize)
-                .map(Path::toString)
-                .collect(Collectors.toCollection(ArrayList::new));
+        try (Stream<Path> paths = Files.find(directory.toPath(), MAX_DEPTH, MATCHER)) {
+            return paths
+                    // Determine the relative path of the resource vs the base path
+                    .map(basePath::relativize)
+                    .map(Path::toString)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
     }
 
     private static List<String> findResourcesInJar(JarFile jarFile, Predicate<String> extensionFilter) {
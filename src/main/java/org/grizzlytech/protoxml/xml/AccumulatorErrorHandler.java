@@ -45,7 +45,13 @@ public class AccumulatorErrorHandler implements ErrorHandler {
                 errorCount, warningCount, Tokens.NEWLINE_S));
 
         for (SAXParseException e : this.exceptions) {
-            text.append(String.format("Line %s (%s): %s", e.getLineNumber(), e.getColumnNumber(), e.getLocalizedMessage()));
+            if (e.getLineNumber() > 0) {
+                text.append(String.format("Line %s (%s): %s", e.getLineNumber(), e.getColumnNumber(),
+                        e.getLocalizedMessage()));
+            } else {
+                // Position unknown, e.g., validated while marshalling
+                text.append(e.getLocalizedMessage());
+            }
             text.append(Tokens.NEWLINE_S);
         }
         return text.toString();
@@ -25,6 +25,7 @@
 package org.grizzlytech.protoxml.xml;
 
 
+import org.grizzlytech.protoxml.util.ResourceIndex;
 import org.grizzlytech.protoxml.util.ResourceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +41,7 @@ import java.util.function.Predicate;
  * Default implementation of an ElementList.
  * <p>
  * For resource resolution, this implementation leverages ResourceUtil to identify a list of available
- * schema files located under getRelativeSchemaPath().
+ * schema files located under getRelativeSchemaPath(), which are then indexed by name (see ResourceIndex).
  * <p>
  * It is assumed that schemas have a unique name - e.g., the folder structures does not contain multiple XSDs
  * with the same name. This keep resolution easy.
@@ -56,9 +57,9 @@ public abstract class ElementListImpl implements ElementList {
     private boolean initialized = false;
 
     /**
-     * List of available XSDs
+     * Index of available XSDs, shared by all resolvers created by this ElementList
      */
-    private List<String> resourcePaths = null;
+    private ResourceIndex resourceIndex = null;
 
     /**
      * Initialise the ElementList
@@ -68,8 +69,8 @@ public abstract class ElementListImpl implements ElementList {
     public void init() {
         if (!initialized) {
             // Cache the path to all schemas under the searchPath
-            this.resourcePaths = ResourceUtil.getResourcePaths(getClassLoader(),
-                    getRelativeSchemaPath().normalize(), XSD_FILTER);
+            this.resourceIndex = new ResourceIndex(ResourceUtil.getResourcePaths(getClassLoader(),
+                    getRelativeSchemaPath().normalize(), XSD_FILTER));
             // Register elements and namespace preferences
             registerAll();
             initialized = true;
@@ -82,7 +83,7 @@ public abstract class ElementListImpl implements ElementList {
 
     public ResourceResolver getResourceResolver() {
         ResourceResolver resolver = new ResourceResolver();
-        resolver.setResourcePaths(this.resourcePaths);
+        resolver.setResourceIndex(this.resourceIndex);
         return resolver;
     }
 
@@ -112,7 +113,7 @@ public abstract class ElementListImpl implements ElementList {
     protected void register(Class<?> elementClass, String resourceName) {
         assert (elementClass != null);
         // Get the URL for the named resource
-        URL schemaURL = ResourceUtil.getResourceURLByName(getClassLoader(), resourceName, this.resourcePaths);
+        URL schemaURL = ResourceUtil.getResourceURLByName(getClassLoader(), resourceName, this.resourceIndex);
 
         // Look-up namespace via QName
         QName qname = XMLObjectFactory.getInstance().getElementQName(elementClass, true);
@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.grizzlytech.protoxml.util.Common;
+import org.grizzlytech.protoxml.util.Tokens;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of element classes to the ElementList that registers them, generated at build time so that an
+ * ElementList can be found without scanning the classpath.
+ * <p>
+ * The index is held in META-INF/protoxml/element-lists.index, one "elementClass=elementListClass" line per
+ * element. Every index on the classpath is merged. The build generates the index after compiling the
+ * ElementLists, running main with the package root and classes directory (see the exec-maven-plugin execution in
+ * the pom, which indexes the test domain). A project defining ElementLists adds the same execution at the
+ * process-classes phase, so that its jar ships with an index:
+ * <pre>
+ *     java org.grizzlytech.protoxml.xml.ElementListIndex [package-root] [classes-dir]
+ * </pre>
+ */
+public class ElementListIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ElementListIndex.class);
+
+    public static final String INDEX_RESOURCE = "META-INF/protoxml/element-lists.index";
+
+    private static final String COMMENT_PREFIX_S = "#";
+    private static final String DELIMITER_S = "=";
+
+    private final Map<String, String> elementListClassNames;
+
+    private ElementListIndex(Map<String, String> elementListClassNames) {
+        this.elementListClassNames = elementListClassNames;
+    }
+
+    /**
+     * Generate the index for all ElementLists found under the package root
+     */
+    public static void main(String args[])
+            throws IOException {
+        if (args.length < 2) {
+            LOG.error("USAGE: [package-root] [classes-dir]");
+            System.exit(-1);
+        }
+        File indexFile = write(args[0], new File(args[1]));
+        LOG.info("Wrote {}", indexFile.getAbsolutePath());
+    }
+
+    /**
+     * Load and merge every index visible to the class loader
+     *
+     * @param classLoader loader to search
+     * @return the index, empty if none were found
+     */
+    public static ElementListIndex load(ClassLoader classLoader) {
+        Map<String, String> classNames = new HashMap<>();
+        try {
+            Enumeration<URL> indexURLs = classLoader.getResources(INDEX_RESOURCE);
+            while (indexURLs.hasMoreElements()) {
+                read(indexURLs.nextElement(), classNames);
+            }
+        } catch (IOException ex) {
+            LOG.error("Unable to read {}", INDEX_RESOURCE, ex);
+        }
+        LOG.debug("Loaded index of {} element classes", classNames.size());
+        return new ElementListIndex(classNames);
+    }
+
+    /**
+     * Find the ElementList that registers the element class
+     *
+     * @param elementClass the element class
+     * @return the name of the ElementList class, or null if the element is not indexed
+     */
+    public String findElementListClassName(Class elementClass) {
+        return elementListClassNames.get(elementClass.getName());
+    }
+
+    public Map<String, String> getElementListClassNames() {
+        return Collections.unmodifiableMap(elementListClassNames);
+    }
+
+    public int size() {
+        return elementListClassNames.size();
+    }
+
+    /**
+     * Scan the classpath for ElementLists and write the index of their elements beneath the output directory
+     *
+     * @param packageRoot package to start searching from
+     * @param outputDir   root of the compiled classes (or resources)
+     * @return the index file
+     * @throws IOException if the index cannot be written
+     */
+    public static File write(String packageRoot, File outputDir)
+            throws IOException {
+        List<ElementList> elementLists = ElementListUtil.createAllElementLists(packageRoot);
+
+        // Sorted, so that the generated file is the same from build to build
+        Map<String, String> classNames = new TreeMap<>();
+        for (ElementList elementList : elementLists) {
+            for (ElementMetadata metadata : elementList.getElements()) {
+                String previous = classNames.put(metadata.getElementClass().getName(),
+                        elementList.getClass().getName());
+                if (previous != null) {
+                    LOG.warn("{} registered by both {} and {}", metadata.getElementClass().getName(), previous,
+                            elementList.getClass().getName());
+                }
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(COMMENT_PREFIX_S).append(" elementClass=elementListClass").append(Tokens.NEWLINE_S);
+        classNames.forEach((element, list) ->
+                builder.append(element).append(DELIMITER_S).append(list).append(Tokens.NEWLINE_S));
+
+        Path indexPath = outputDir.toPath().resolve(INDEX_RESOURCE);
+        Files.createDirectories(indexPath.getParent());
+        Files.write(indexPath, builder.toString().getBytes(StandardCharsets.UTF_8));
+        return indexPath.toFile();
+    }
+
+    private static void read(URL indexURL, Map<String, String> classNames)
+            throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(indexURL.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (Common.isEmpty(line) || line.startsWith(COMMENT_PREFIX_S)) {
+                    continue;
+                }
+                int delimiter = line.indexOf(DELIMITER_S);
+                if (delimiter > 0) {
+                    classNames.putIfAbsent(line.substring(0, delimiter).trim(), line.substring(delimiter + 1).trim());
+                } else {
+                    LOG.warn("Ignoring [{}] in {}", line, indexURL);
+                }
+            }
+        }
+    }
+}
@@ -68,15 +68,29 @@ final public class ElementListUtil {
      * @return list of matching ElementList implementations
      */
     public static List<ElementList> createAllElementLists(String packageRoot) {
+        List<ElementList> list = new ArrayList<>();
+
+        findAllElementListClassNames(packageRoot).forEach(name -> list.add(createElementList(name)));
+
+        return list;
+    }
+
+    /**
+     * Find the names of all ElementList classes in the classpath, without creating them
+     *
+     * @param packageRoot package to start searching from
+     * @return names of matching ElementList implementations
+     */
+    public static List<String> findAllElementListClassNames(String packageRoot) {
         final String ASSUMED_CLASS_SUFFIX = "ElementList";
         final Predicate<String> CLASSNAME_FILTER = (x) -> x.contains(ASSUMED_CLASS_SUFFIX);
 
-        List<ElementList> list = new ArrayList<>();
+        List<String> names = new ArrayList<>();
 
         ClassUtil.getImplementations(packageRoot, CLASSNAME_FILTER, ElementList.class)
-                .forEach(c -> list.add(createElementList(c.getCanonicalName())));
+                .forEach(c -> names.add(c.getCanonicalName()));
 
-        return list;
+        return names;
     }
 
     public static ElementMetadata findByElementClass(ElementList elementList, Class elementClass) {
@@ -33,7 +33,15 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LSInput backed by a read-only buffer holding the entire resource.
+ * <p>
+ * The contents are offered as a byte stream (leaving the parser to detect the encoding), and each call to
+ * getByteStream returns a new stream positioned at the start, so the same Input may be read more than once.
+ */
 public class Input implements LSInput {
 
     private static final Logger LOG = LoggerFactory.getLogger(Input.class);
@@ -42,12 +50,21 @@ public class Input implements LSInput {
 
     private String systemId;
 
-    private BufferedInputStream inputStream;
+    private ByteBuffer contents;
 
+    /**
+     * @param input read to its end and closed
+     */
     public Input(String publicId, String sysId, InputStream input) {
         this.publicId = publicId;
         this.systemId = sysId;
-        this.inputStream = new BufferedInputStream(input);
+        setInputStream(new BufferedInputStream(input));
+    }
+
+    public Input(String publicId, String sysId, ByteBuffer contents) {
+        this.publicId = publicId;
+        this.systemId = sysId;
+        this.contents = contents.asReadOnlyBuffer();
     }
 
     public String getPublicId() {
@@ -66,7 +83,7 @@ public class Input implements LSInput {
     }
 
     public InputStream getByteStream() {
-        return null;
+        return (contents != null) ? new ByteBufferInputStream(contents.duplicate()) : null;
     }
 
     public void setByteStream(InputStream byteStream) {
@@ -93,19 +110,14 @@ public class Input implements LSInput {
     public void setEncoding(String encoding) {
     }
 
+    /**
+     * @return the entire contents, assumed to be UTF-8 encoded (note that parsers prefer getByteStream)
+     */
     public String getStringData() {
-
-        String contents = null;
-
-        try {
-            byte[] input = new byte[inputStream.available()];
-            if (inputStream.read(input) > 0) {
-                contents = new String(input);
-            }
-        } catch (IOException e) {
-            LOG.error("Unable to read inputStream", e);
+        if (contents == null || !contents.hasRemaining()) {
+            return null;
         }
-        return contents;
+        return StandardCharsets.UTF_8.decode(contents.duplicate()).toString();
     }
 
     public void setStringData(String stringData) {
@@ -120,10 +132,57 @@ public class Input implements LSInput {
     }
 
     public BufferedInputStream getInputStream() {
-        return inputStream;
+        InputStream byteStream = getByteStream();
+        return (byteStream != null) ? new BufferedInputStream(byteStream) : null;
     }
 
     public void setInputStream(BufferedInputStream inputStream) {
-        this.inputStream = inputStream;
+        try (InputStream in = inputStream) {
+            this.contents = ByteBuffer.wrap(SchemaResourceCache.readFully(in)).asReadOnlyBuffer();
+        } catch (IOException e) {
+            LOG.error("Unable to read inputStream", e);
+            this.contents = null;
+        }
+    }
+
+    /**
+     * InputStream over a ByteBuffer (which may be memory-mapped)
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 }
@@ -25,16 +25,15 @@
 package org.grizzlytech.protoxml.xml;
 
 
-import org.grizzlytech.protoxml.util.ResourceUtil;
+import org.grizzlytech.protoxml.util.ResourceIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.ls.LSInput;
 import org.w3c.dom.ls.LSResourceResolver;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class ResourceResolver implements LSResourceResolver {
@@ -42,9 +41,9 @@ public class ResourceResolver implements LSResourceResolver {
     private static final Logger LOG = LoggerFactory.getLogger(ResourceResolver.class);
 
     /**
-     * List of XSDs available - paths relative to "resourcePaths"
+     * Index of XSDs available - paths relative to "resourcePaths". The index may be shared by many resolvers
      */
-    private List<String> resourcePaths;
+    private ResourceIndex resourceIndex;
 
     private static String getFilename(String filePath) {
         return (new File(filePath)).getName();
@@ -65,39 +64,60 @@ public class ResourceResolver implements LSResourceResolver {
         //        type, namespaceURI, publicId, systemId, baseURI);
 
         String systemIDName = getFilename(systemId);
-        String systemIdPath = ResourceUtil.getResourcePath(systemIDName, resourcePaths);
+        String systemIdPath = resourceIndex.getPath(systemIDName);
         //LOG.debug("systemIdName:[{}], systemIdPath:[{}]", systemIDName, systemIdPath);
 
-        InputStream resourceAsStream = null;
+        ByteBuffer contents = null;
         if (systemIdPath != null) {
-            // Read from Classpath using relative path
-            // LOG.debug("Plan A: Reading systemIdPath:[{}] from ClassLoader.getResourceAsStream", systemIdPath);
-            resourceAsStream = this.getClass().getClassLoader()
-                    .getResourceAsStream(systemIdPath);
-        } else {
-            LOG.error("Unable to locate systemIdPath for systemId:[{}]", systemId);
-        }
-
-        if (systemIdPath != null && resourceAsStream == null) {
+            // Read from Classpath using relative path (else direct from the file system), unless already cached
             try {
-                LOG.debug("Plan B: Reading systemIdPath:[{}] direct from FileInputStream", systemIdPath);
-                resourceAsStream = new FileInputStream(systemIdPath);
+                contents = SchemaResourceCache.getInstance().getContents(systemIdPath,
+                        this.getClass().getClassLoader());
             } catch (IOException ex) {
-                LOG.error("Unable to create FileInputStream for [{}]", systemId, ex);
+                LOG.error("Unable to read systemIdPath:[{}]", systemIdPath, ex);
             }
+        } else {
+            LOG.error("Unable to locate systemIdPath for systemId:[{}]", systemId);
         }
-        if (resourceAsStream == null) {
+
+        if (contents == null) {
             LOG.error("Unable to locate systemId:[{}]", systemId);
         }
 
-        return (resourceAsStream != null) ? new Input(publicId, systemId, resourceAsStream) : null;
+        return (contents != null) ? new Input(publicId, systemId, contents) : null;
     }
 
     public List<String> getResourcePaths() {
-        return resourcePaths;
+        return resourceIndex.getPaths();
     }
 
     public void setResourcePaths(List<String> resourcePaths) {
-        this.resourcePaths = resourcePaths;
+        this.resourceIndex = new ResourceIndex(resourcePaths);
+    }
+
+    public ResourceIndex getResourceIndex() {
+        return resourceIndex;
+    }
+
+    public void setResourceIndex(ResourceIndex resourceIndex) {
+        this.resourceIndex = resourceIndex;
+    }
+
+    /**
+     * Resolvers sharing the same ResourceIndex resolve identically, and are considered equal.
+     * This allows compiled schemas to be cached per resolver (see SchemaCache).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ResourceResolver other = (ResourceResolver) o;
+        return this.resourceIndex == other.resourceIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this.resourceIndex);
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.net.URL;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of compiled XML Schemas, keyed by schema URL and resource resolver.
+ * <p>
+ * Compiling a schema (and all of the schemas it imports) is expensive, so each schema is compiled once and
+ * shared. A Schema is thread safe, but a Validator is not, hence each thread is given its own Validator
+ * for each cached Schema.
+ */
+public class SchemaCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaCache.class);
+
+    private static final SchemaCache INSTANCE = new SchemaCache();
+
+    /**
+     * Pending or compiled schemas. Concurrent requests for the same key wait on the same compilation.
+     */
+    private final ConcurrentMap<Key, FutureTask<Entry>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public static SchemaCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the compiled Schema, compiling it on first request
+     *
+     * @param schemaURL URL to the XSD
+     * @param resolver  resolver, needed should other XSDs be referenced
+     * @return the compiled Schema
+     * @throws SAXException if the schema cannot be compiled
+     */
+    public Schema getSchema(URL schemaURL, LSResourceResolver resolver)
+            throws SAXException {
+        return getEntry(schemaURL, resolver).schema;
+    }
+
+    /**
+     * Get a Validator for the current thread, reset to its initial state
+     *
+     * @param schemaURL URL to the XSD
+     * @param resolver  resolver, needed should other XSDs be referenced
+     * @return a Validator which must only be used by the calling thread
+     * @throws SAXException if the schema cannot be compiled
+     */
+    public Validator getValidator(URL schemaURL, LSResourceResolver resolver)
+            throws SAXException {
+        Validator validator = getEntry(schemaURL, resolver).validators.get();
+        validator.reset();
+        return validator;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SchemaCache: Size (%s) Hits (%s) Misses (%s)", size(), getHitCount(), getMissCount());
+    }
+
+    private Entry getEntry(URL schemaURL, LSResourceResolver resolver)
+            throws SAXException {
+        Key key = new Key(schemaURL, resolver);
+
+        FutureTask<Entry> task = entries.get(key);
+        if (task == null) {
+            FutureTask<Entry> created = new FutureTask<>(() -> compile(schemaURL, resolver));
+            task = entries.putIfAbsent(key, created);
+            if (task == null) {
+                // This thread won the race, so compile the schema
+                task = created;
+                misses.increment();
+                task.run();
+            } else {
+                hits.increment();
+            }
+        } else {
+            hits.increment();
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SAXException("Interrupted whilst compiling " + schemaURL, ex);
+        } catch (ExecutionException ex) {
+            // Do not cache failures, so that a later request can retry
+            entries.remove(key, task);
+            Throwable cause = ex.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            }
+            throw new SAXException("Unable to compile " + schemaURL, (cause instanceof Exception) ?
+                    (Exception) cause : ex);
+        }
+    }
+
+    private Entry compile(URL schemaURL, LSResourceResolver resolver)
+            throws SAXException {
+        long start = System.nanoTime();
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+
+        // Associate the schema factory with the resource resolver, which is responsible for resolving
+        // the imported XSDs
+        schemaFactory.setResourceResolver(resolver);
+        Schema schema = schemaFactory.newSchema(schemaURL);
+
+        LOG.info("Compiled schema [{}] in {} ms", schemaURL, (System.nanoTime() - start) / 1_000_000);
+        return new Entry(schema);
+    }
+
+    /**
+     * Compiled Schema and the Validators created for it (one per thread)
+     */
+    private static class Entry {
+        private final Schema schema;
+        private final ThreadLocal<Validator> validators;
+
+        Entry(Schema schema) {
+            this.schema = schema;
+            this.validators = ThreadLocal.withInitial(schema::newValidator);
+        }
+    }
+
+    /**
+     * URLs are compared by their external form, as URL#equals may perform host name resolution
+     */
+    private static class Key {
+        private final String schemaURL;
+        private final LSResourceResolver resolver;
+
+        Key(URL schemaURL, LSResourceResolver resolver) {
+            this.schemaURL = schemaURL.toExternalForm();
+            this.resolver = resolver;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return schemaURL.equals(key.schemaURL) && Objects.equals(resolver, key.resolver);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * schemaURL.hashCode() + Objects.hashCode(resolver);
+        }
+    }
+}
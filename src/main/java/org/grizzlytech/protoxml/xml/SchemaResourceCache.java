@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide, size-bounded cache of schema (XSD) contents, keyed by resolved resource path.
+ * <p>
+ * Compiling a schema reads every XSD it imports or includes. Caching the contents means that repeated
+ * compilation (by other resolvers, or after the SchemaCache is cleared) does not re-read the file system or
+ * re-inflate jar entries. Resources on the file system are memory-mapped; all others are read into a byte
+ * array. Either way, the cached buffer is read-only and is shared by all readers via ByteBuffer#duplicate.
+ * <p>
+ * When full, the least recently used contents are evicted.
+ */
+public class SchemaResourceCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaResourceCache.class);
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final SchemaResourceCache INSTANCE = new SchemaResourceCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+
+    /**
+     * Contents by resource path, in access order (guarded by this)
+     */
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SchemaResourceCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static SchemaResourceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the contents of a resource, reading it on first request.
+     * <p>
+     * The resource is found using the ClassLoader, else the path is assumed to be a file path.
+     *
+     * @param resourcePath path of the resource, relative to the classpath
+     * @param classLoader  the source of the resource
+     * @return a read-only buffer positioned at the start of the contents, else null if there is no such resource
+     * @throws IOException if the resource cannot be read
+     */
+    public ByteBuffer getContents(String resourcePath, ClassLoader classLoader)
+            throws IOException {
+        synchronized (this) {
+            ByteBuffer contents = entries.get(resourcePath);
+            if (contents != null) {
+                hits.increment();
+                return contents.duplicate();
+            }
+        }
+
+        // Read outside of the lock. Should two threads race, both read and the first to finish is cached
+        misses.increment();
+        ByteBuffer contents = read(resourcePath, classLoader);
+        if (contents == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            ByteBuffer existing = entries.get(resourcePath);
+            if (existing != null) {
+                return existing.duplicate();
+            }
+            if (contents.capacity() <= maxBytes) {
+                entries.put(resourcePath, contents);
+                totalBytes += contents.capacity();
+                evict();
+            }
+        }
+        return contents.duplicate();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SchemaResourceCache: Size (%s) Bytes (%s) Hits (%s) Misses (%s)",
+                size(), getTotalBytes(), getHitCount(), getMissCount());
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().capacity();
+            iterator.remove();
+        }
+    }
+
+    private static ByteBuffer read(String resourcePath, ClassLoader classLoader)
+            throws IOException {
+        URL resourceURL = classLoader.getResource(resourcePath);
+        if (resourceURL == null) {
+            // Plan B: read direct from the file system
+            File file = new File(resourcePath);
+            if (!file.isFile()) {
+                return null;
+            }
+            LOG.debug("Reading resourcePath:[{}] direct from file system", resourcePath);
+            return map(file);
+        }
+        if ("file".equals(resourceURL.getProtocol())) {
+            try {
+                return map(Paths.get(resourceURL.toURI()).toFile());
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                LOG.debug("Cannot map [{}], reading it instead. Error [{}]", resourceURL, ex.getMessage());
+            }
+        }
+        try (InputStream in = resourceURL.openStream()) {
+            return ByteBuffer.wrap(readFully(in)).asReadOnlyBuffer();
+        }
+    }
+
+    private static ByteBuffer map(File file)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping remains valid once the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Read a stream to its end. Unlike InputStream#available, this does not depend on how much of the stream
+     * happens to be buffered (e.g., for a compressed jar entry)
+     *
+     * @param in stream to be read
+     * @return the contents of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    static byte[] readFully(InputStream in)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.transform.sax.TransformerHandler;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SAX filter, sitting between the Marshaller and the serializer, which inserts each comment immediately before
+ * the element at its XMLPath.
+ * <p>
+ * The path of every element is tracked as the document streams past, so no DOM is required. Each step is
+ * indexed by the number of preceding siblings with the same name; as "no index" compares equal to index 0,
+ * this matches the paths of both single and repeated elements. Comments are removed from the map once used,
+ * leaving only those that could not be placed.
+ */
+class XMLCommentInjector extends XMLFilterImpl {
+
+    private final LexicalHandler lexicalHandler;
+
+    private final Map<XMLPath, String> comments;
+
+    /**
+     * Comment keys by comparable value, so that paths can be matched without creating an XMLPath per element
+     */
+    private final Map<String, XMLPath> commentKeys = new HashMap<>();
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    XMLCommentInjector(TransformerHandler serializer, Map<XMLPath, String> comments) {
+        setContentHandler(serializer);
+        this.lexicalHandler = serializer;
+        this.comments = comments;
+        comments.keySet().forEach(key -> commentKeys.put(key.getComparableValue(), key));
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        Frame parent = frames.peek();
+        Frame frame;
+        if (commentKeys.isEmpty()) {
+            // Every comment has been placed, so stop tracking paths
+            frame = Frame.UNTRACKED;
+        } else if (parent == null) {
+            // The root element is not part of the path
+            frame = new Frame(null);
+        } else {
+            frame = new Frame(parent.childPath(localName));
+            insertComment(frame.path);
+        }
+        frames.push(frame);
+        super.startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName)
+            throws SAXException {
+        frames.pop();
+        super.endElement(uri, localName, qName);
+    }
+
+    private void insertComment(String path)
+            throws SAXException {
+        XMLPath key = commentKeys.remove(path);
+        if (key != null) {
+            char[] text = comments.remove(key).toCharArray();
+            lexicalHandler.comment(text, 0, text.length);
+        }
+    }
+
+    /**
+     * An open element: its comparable path and the number of children seen so far, by name
+     */
+    private static class Frame {
+        private static final Frame UNTRACKED = new Frame(null);
+
+        private final String path;
+        private Map<String, Integer> childCounts = null;
+
+        Frame(String path) {
+            this.path = path;
+        }
+
+        String childPath(String localName) {
+            if (childCounts == null) {
+                childCounts = new HashMap<>();
+            }
+            int index = childCounts.merge(localName, 1, Integer::sum) - 1;
+
+            StringBuilder builder = new StringBuilder();
+            if (path != null) {
+                builder.append(path).append(XMLPath.XPATH_DELIMITER);
+            }
+            return XMLPath.appendComparableStep(builder, localName, index).toString();
+        }
+    }
+}
@@ -30,21 +30,23 @@ import org.grizzlytech.protoxml.util.Common;
 import org.grizzlytech.protoxml.util.Tokens;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.*;
-import org.w3c.dom.Element;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.bind.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.validation.Schema;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.time.LocalDateTime;
@@ -52,23 +54,64 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Marshall a populated BeanImpl into an XML document
+ * <p>
+ * JAXBContexts are expensive to create, so one is created per root element class and shared. Marshallers are
+ * not thread safe, so each thread keeps its own, configured by applyCommonProperties, for reuse.
  */
 public class XMLMarshaller {
 
     private static final Logger LOG = LoggerFactory.getLogger(XMLMarshaller.class);
+
+    /**
+     * Encoding used when marshalling to an OutputStream
+     */
+    public static final String ENCODING = "UTF-8";
+
+    private static final String XML_HEADERS_PROPERTY = "com.sun.xml.internal.bind.xmlHeaders";
+
+    // Cache of JAXBContexts, by root element class
+    private static final Map<Class, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    // Configured Marshallers, confined to the thread that created them
+    private static final ThreadLocal<Map<MarshallerKey, Marshaller>> MARSHALLERS =
+            ThreadLocal.withInitial(HashMap::new);
+
+    // SAX serializer factories, confined to the thread that created them
+    private static final ThreadLocal<SAXTransformerFactory> TRANSFORMER_FACTORIES =
+            ThreadLocal.withInitial(() -> (SAXTransformerFactory) TransformerFactory.newInstance());
+
     private final List<String> schemaLocations = new ArrayList<>();
     private NamespacePrefixMapper namespacePrefixMapper = null;
+    private Schema schema = null;
+    private ErrorHandler errorHandler = null;
 
     public XMLMarshaller() {
     }
 
+    /**
+     * Validate the document against the schema as it is marshalled, reporting problems to the error handler.
+     * Marshalling continues past validation errors, so the whole document is written and every error reported.
+     * The events come from the marshaller rather than a parser, so line and column numbers are not known.
+     *
+     * @param schema       compiled schema, or null to stop validating
+     * @param errorHandler receives the validation errors
+     */
+    public void setValidation(Schema schema, ErrorHandler errorHandler) {
+        Common.argumentAssertion(schema == null || errorHandler != null, LOG,
+                "An error handler is required to validate against {}", schema);
+        this.schema = schema;
+        this.errorHandler = errorHandler;
+    }
+
     public void addSchemaLocations(String namespace, URL schemaURL) {
         assert Common.notEmpty(namespace);
         try {
-            String location = URLDecoder.decode(schemaURL.getFile(), "UTF-8");
+            String location = URLDecoder.decode(schemaURL.getFile(), ENCODING);
             this.schemaLocations.add(namespace);
             this.schemaLocations.add(location);
         } catch (UnsupportedEncodingException ex) {
@@ -89,10 +132,60 @@ public class XMLMarshaller {
         this.namespacePrefixMapper = namespacePrefixMapper;
     }
 
+    /**
+     * Get the shared JAXBContext for the root element class, creating it on first request
+     *
+     * @param rootClass class of the root element
+     * @return the JAXBContext
+     * @throws JAXBException if the context cannot be created
+     */
+    public static JAXBContext getContext(Class rootClass)
+            throws JAXBException {
+        try {
+            return CONTEXTS.computeIfAbsent(rootClass, XMLMarshaller::newContext);
+        } catch (ContextException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static JAXBContext newContext(Class rootClass) {
+        try {
+            LOG.debug("Creating JAXBContext for {}", rootClass.getCanonicalName());
+            return JAXBContext.newInstance(rootClass);
+        } catch (JAXBException ex) {
+            throw new ContextException(ex);
+        }
+    }
+
+    /**
+     * Get this thread's Marshaller for the root element class and the current properties.
+     * The header comment is refreshed on every call.
+     *
+     * @param rootClass class of the root element
+     * @return a configured Marshaller which must only be used by the calling thread
+     * @throws JAXBException if the Marshaller cannot be created or configured
+     */
+    protected Marshaller getMarshaller(Class rootClass)
+            throws JAXBException {
+        MarshallerKey key = new MarshallerKey(rootClass, this.namespacePrefixMapper, this.schemaLocations);
+        Map<MarshallerKey, Marshaller> marshallers = MARSHALLERS.get();
+
+        Marshaller marshaller = marshallers.get(key);
+        if (marshaller == null) {
+            marshaller = getContext(rootClass).createMarshaller();
+            applyCommonProperties(marshaller);
+            marshallers.put(key, marshaller);
+        } else {
+            marshaller.setProperty(XML_HEADERS_PROPERTY, getHeaderComment());
+        }
+        return marshaller;
+    }
+
     protected void applyCommonProperties(Marshaller marshaller)
             throws PropertyException {
         marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        marshaller.setProperty("com.sun.xml.internal.bind.xmlHeaders", getHeaderComment());
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, ENCODING);
+        marshaller.setProperty(XML_HEADERS_PROPERTY, getHeaderComment());
 
         // Prefix namespaces (if required)
         if (this.namespacePrefixMapper != null) {
@@ -113,8 +206,35 @@ public class XMLMarshaller {
      * @return am XML String
      */
     public String toXML(Object rootElement) {
+        StringWriter writer = new StringWriter();
+        return toXML(rootElement, writer) ? writer.toString() : "";
+    }
+
+    /**
+     * Marshall the Document straight to the writer
+     *
+     * @param rootElement the root element to marshall
+     * @param writer      output writer for the XML
+     * @return true if the Document was marshalled
+     */
+    public boolean toXML(Object rootElement, Writer writer) {
+        return toXML(rootElement, new StreamResult(writer));
+    }
+
+    /**
+     * Marshall the Document straight to the output stream, encoded as UTF-8
+     *
+     * @param rootElement  the root element to marshall
+     * @param outputStream output stream for the XML
+     * @return true if the Document was marshalled
+     */
+    public boolean toXML(Object rootElement, OutputStream outputStream) {
+        return toXML(rootElement, new StreamResult(outputStream));
+    }
+
+    private boolean toXML(Object rootElement, StreamResult result) {
         LOG.info("toXML: {}", rootElement);
-        String xmlData = "";
+        boolean marshalled = false;
 
         // Create the header
         JAXBElement<?> header = XMLObjectFactory.getInstance().createObjectW(JAXBElement.class,
@@ -123,30 +243,53 @@ public class XMLMarshaller {
                 Common.safeToName(rootElement));
 
         try {
-            JAXBContext context = JAXBContext.newInstance(rootElement.getClass());
-
-            // Create a marshaller and set properties
-            Marshaller marshaller = context.createMarshaller();
-            applyCommonProperties(marshaller);
+            // Get a marshaller with properties set
+            Marshaller marshaller = getMarshaller(rootElement.getClass());
 
             // Marshall
-            StringWriter writer = new StringWriter();
-
-            marshaller.marshal(header, writer);
+            startValidation(marshaller);
+            try {
+                marshaller.marshal(header, result);
+            } finally {
+                endValidation(marshaller);
+            }
 
-            xmlData = writer.toString();
+            marshalled = true;
         } catch (JAXBException ex) {
             LOG.error("Unable to marshal Header", ex);
         }
-        return xmlData;
+        return marshalled;
     }
 
     /**
-     * Marshall to a DOM, then iterate over the DOM, adding comments
+     * Marshall to XML, inserting each comment before the element at its XMLPath
      */
-
     public String toXMLWithComments(Object rootElement, Map<XMLPath, String> comments) {
-        String xmlData = "";
+        StringWriter writer = new StringWriter();
+        return toXMLWithComments(rootElement, comments, writer) ? writer.toString() : "";
+    }
+
+    /**
+     * Marshall to XML with comments, straight to the writer
+     *
+     * @return true if the Document was marshalled
+     */
+    public boolean toXMLWithComments(Object rootElement, Map<XMLPath, String> comments, Writer writer) {
+        return toXMLWithComments(rootElement, comments, new StreamResult(writer));
+    }
+
+    /**
+     * Marshall to XML with comments, straight to the output stream, encoded as UTF-8
+     *
+     * @return true if the Document was marshalled
+     */
+    public boolean toXMLWithComments(Object rootElement, Map<XMLPath, String> comments,
+                                     OutputStream outputStream) {
+        return toXMLWithComments(rootElement, comments, new StreamResult(outputStream));
+    }
+
+    private boolean toXMLWithComments(Object rootElement, Map<XMLPath, String> comments, StreamResult result) {
+        boolean marshalled = false;
         try {
             JAXBElement<?> header = XMLObjectFactory.getInstance().createObjectW(JAXBElement.class,
                     rootElement, null);
@@ -154,123 +297,81 @@ public class XMLMarshaller {
             Common.fatalAssertion(header != null, LOG, "Unable to create JAXBElement for {}",
                     Common.safeToName(rootElement));
 
-            JAXBContext context = JAXBContext.newInstance(rootElement.getClass());
-
-            // Create a marshaller and set properties
-            Marshaller marshaller = context.createMarshaller();
-            applyCommonProperties(marshaller);
-
-            // Marshall into the DOM
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.newDocument();
-            marshaller.marshal(header, doc);
-
-            // Decorate with comments. Start by finding the starting element
-            Element startElementNode = doc.getDocumentElement();
-            //comments.forEach((key, value) -> LOG.debug("Start comment: {}={}", key, value));
-            decorateDOMWithComments(doc, startElementNode, null, comments);
-            comments.forEach((key, value) -> LOG.warn("Unused comment: {}={}", key, value));
+            // Get a marshaller with properties set
+            Marshaller marshaller = getMarshaller(rootElement.getClass());
 
-            // Transform
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer t = tf.newTransformer();
+            // Serializer for the SAX events
+            TransformerHandler serializer = TRANSFORMER_FACTORIES.get().newTransformerHandler();
+            Transformer t = serializer.getTransformer();
 
-            t.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            t.setOutputProperty(OutputKeys.ENCODING, ENCODING);
+            t.setOutputProperty(OutputKeys.STANDALONE, "no");
             t.setOutputProperty(OutputKeys.INDENT, "yes");
             t.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+            serializer.setResult(result);
+
+            // Marshall, inserting the comments as the document streams through to the serializer
+            startValidation(marshaller);
+            try {
+                marshaller.marshal(header, new XMLCommentInjector(serializer, comments));
+            } finally {
+                endValidation(marshaller);
+            }
+            comments.forEach((key, value) -> LOG.warn("Unused comment: {}={}", key, value));
 
-            // Marshall
-            StringWriter writer = new StringWriter();
-            t.transform(new DOMSource(doc), new StreamResult(writer));
-
-            xmlData = writer.toString();
-        } catch (JAXBException | ParserConfigurationException | TransformerException ex) {
+            marshalled = true;
+        } catch (JAXBException | TransformerException ex) {
 
             LOG.error("Unable to marshal Header: VIM.", ex);
         }
 
-        return xmlData;
+        return marshalled;
     }
 
     /**
-     * NEED class in testdomain the uses substitution group and attribute renaming
-     * <p>
-     * Insert Comment nodes for children where a comment is needed
-     * <p>
-     * doc     the DOM document being edited
-     *
-     * @param element starting element node
-     * @param path    null if root, else a.b.c.d
-     *                getCommentText
+     * Marshallers are shared by the thread, so the schema is set for the duration of a single marshal
      */
-    private void decorateDOMWithComments(Document doc, Node element, String path, Map<XMLPath, String> comments) {
-        // Only process Element nodes
-        assert (element.getNodeType() == Node.ELEMENT_NODE);
-
-        // Determine the number of children this element node has
-        NodeList childNodes = element.getChildNodes();
-
-        int siblingCount = childNodes.getLength();
-        Node childNode = null;
-
-        // First pass, count the children
-        Map<String, Counter> counterMap = countChildElements(element);
-
-        // Second pass, look for comments
-        for (int child = 0; child < siblingCount; child++) {
-            // Get the next child
-            childNode = (childNode == null) ? childNodes.item(0) : childNode.getNextSibling();
-
-            // If the child is en element, add a comment, and follow that element down
-            if (childNode.getNodeType() == Node.ELEMENT_NODE) {
-                // Determine the element name and increment the associated "found" count
-                String localName = childNode.getLocalName();
-                Counter count = counterMap.computeIfPresent(localName, (k, v) -> v.incrementFound());
-
-                // Construct the XML path to the element (zero indexing all elements)
-                String childPath = ((path != null) ? path + XMLPath.XPATH_DELIMITER_S : "") + localName;
-                if (count.total > 1) {
-                    // Keep zero based for now, strictly speaking XPath is "1" based
-                    childPath += "[" + (count.found - 1) + "]";
-                }
-                XMLPath childElementXMLPath = new XMLPath(childPath);
-
-                // Lookup comments against the XML path
-                // LOG.debug("Checking for comments: {}", childElementXMLPath);
-                String commentText = comments.get(childElementXMLPath);
-
-                // Decorate if a comment provided
-                if (commentText != null) {
-                    Comment comment = doc.createComment(commentText);
-                    element.insertBefore(comment, childNode);
-                    comments.remove(childElementXMLPath);
-                }
-
-                // Decorate child elements of this child element
-                decorateDOMWithComments(doc, childNode, childPath, comments);
-            }
+    private void startValidation(Marshaller marshaller)
+            throws JAXBException {
+        if (this.schema != null) {
+            marshaller.setSchema(this.schema);
+            marshaller.setEventHandler(this::handleEvent);
         }
     }
 
-    // Count the immediate child elements this node has
-    private Map<String, Counter> countChildElements(Node element) {
-        assert (element.getNodeType() == Node.ELEMENT_NODE);
-        Map<String, Counter> result = new HashMap<>();
-        NodeList childNodes = element.getChildNodes();
-        int siblingCount = childNodes.getLength();
-        // Loop through each, incrementing the count
-        Node childNode = null;
-        for (int child = 0; child < siblingCount; child++) {
-            childNode = (childNode == null) ? childNodes.item(0) : childNode.getNextSibling();
-            if (childNode.getNodeType() == Node.ELEMENT_NODE) {
-                String localName = childNode.getLocalName();
-                // Create a new Counter for the name (if required) and increment it
-                result.compute(localName, (k, v) -> (v == null ? new Counter() : v).incrementTotal());
+    private void endValidation(Marshaller marshaller)
+            throws JAXBException {
+        if (this.schema != null) {
+            marshaller.setSchema(null);
+            marshaller.setEventHandler(null);
+        }
+    }
+
+    /**
+     * Pass a validation event on to the error handler, returning true to continue marshalling.
+     * JAXB raises every schema violation as a FATAL_ERROR; as the marshalled document is always well formed, a
+     * violation reported by the validator (the linked SAXParseException) is passed on as an error.
+     */
+    private boolean handleEvent(ValidationEvent event) {
+        Throwable linked = event.getLinkedException();
+        ValidationEventLocator locator = event.getLocator();
+        SAXParseException exception = (linked instanceof SAXParseException) ? (SAXParseException) linked :
+                new SAXParseException(event.getMessage(), null, null,
+                        (locator != null) ? locator.getLineNumber() : -1,
+                        (locator != null) ? locator.getColumnNumber() : -1);
+        try {
+            if (event.getSeverity() == ValidationEvent.WARNING) {
+                this.errorHandler.warning(exception);
+            } else if (event.getSeverity() == ValidationEvent.ERROR || exception == linked) {
+                this.errorHandler.error(exception);
+            } else {
+                this.errorHandler.fatalError(exception);
             }
+        } catch (SAXException ex) {
+            LOG.error("Validation stopped", ex);
+            return false;
         }
-        return result;
+        return true;
     }
 
     private String firstElseSecond(String s, String t) {
@@ -282,23 +383,45 @@ public class XMLMarshaller {
         return String.format("<!-- Generated at %s -->%s", now.toString(), Tokens.NEWLINE_S);
     }
 
-    private static class Counter {
-        public int total = 0;
-        public int found = 0;
-
-        public Counter incrementTotal() {
-            total++;
-            return this;
+    /**
+     * Marshallers are configured per root class, prefix mapper and schema locations
+     */
+    private static class MarshallerKey {
+        private final Class rootClass;
+        private final NamespacePrefixMapper namespacePrefixMapper;
+        private final String schemaLocations;
+
+        MarshallerKey(Class rootClass, NamespacePrefixMapper namespacePrefixMapper, List<String> schemaLocations) {
+            this.rootClass = rootClass;
+            this.namespacePrefixMapper = namespacePrefixMapper;
+            this.schemaLocations = String.join(" ", schemaLocations);
         }
 
-        public Counter incrementFound() {
-            found++;
-            return this;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            MarshallerKey key = (MarshallerKey) o;
+            return rootClass.equals(key.rootClass) && namespacePrefixMapper == key.namespacePrefixMapper &&
+                    schemaLocations.equals(key.schemaLocations);
         }
 
-        public String toString() {
-            return found + " of " + total;
+        @Override
+        public int hashCode() {
+            return Objects.hash(rootClass, System.identityHashCode(namespacePrefixMapper), schemaLocations);
         }
     }
 
+    // Carries a JAXBException out of ConcurrentHashMap#computeIfAbsent
+    private static class ContextException extends RuntimeException {
+        ContextException(JAXBException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized JAXBException getCause() {
+            return (JAXBException) super.getCause();
+        }
+    }
 }
@@ -75,11 +75,38 @@ public class XMLPath extends QualifiedPath {
             if (step > 0) {
                 builder.append(pathDelimiter());
             }
-            builder.append(getName(step).toUpperCase()); // case insensitive
-            builder.append(CH_LB);
-            builder.append(String.format("%03d", isIndexed(step) ? getIndex(step) : 0)); // pad 3 wide
-            builder.append(CH_RB);
+            appendFoldedStep(builder, getPathName(step).getFolded(), getComparableIndex(getIndex(step)));
         }
         return builder.toString();
     }
+
+    @Override
+    protected boolean isCaseSensitive() {
+        return false;
+    }
+
+    @Override
+    protected int getComparableIndex(int index) {
+        return (index != NO_INDEX) ? index : 0;
+    }
+
+    /**
+     * Append the comparable form of a single step, allowing a comparable value to be built up step by step
+     *
+     * @param builder destination
+     * @param name    step name
+     * @param index   step index, 0 if not indexed
+     * @return the builder
+     */
+    static StringBuilder appendComparableStep(StringBuilder builder, String name, int index) {
+        return appendFoldedStep(builder, name.toUpperCase(), index); // case insensitive
+    }
+
+    private static StringBuilder appendFoldedStep(StringBuilder builder, String foldedName, int index) {
+        builder.append(foldedName);
+        builder.append(CH_LB);
+        appendPaddedIndex(builder, index); // pad 3 wide
+        builder.append(CH_RB);
+        return builder;
+    }
 }
\ No newline at end of file
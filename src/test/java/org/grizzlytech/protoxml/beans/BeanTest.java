@@ -30,10 +30,16 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import testdomain.company.Company;
+import testdomain.employee.Address;
 import testdomain.employee.Employee;
+import testdomain.zoo.Dolphin;
+import testdomain.zoo.Penguin;
 import testdomain.zoo.Zoo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class BeanTest {
     private static final Logger LOG = LoggerFactory.getLogger(BeanTest.class);
@@ -110,4 +116,66 @@ public class BeanTest {
                     "[nickname2]", "[testdomain.zoo.Penguin]"});
         }
     }
+
+    @Test
+    public void testCursorFollowsReplacedValues() throws Exception {
+        Company company = new Company();
+        BeanImpl bean = new BeanImpl(company);
+
+        bean.setPathValue("manager.address.city", "London");
+        bean.setPathValue("manager.phones[0].localNumber", "123");
+        bean.setPathValue("manager.phones[1].localNumber", "456");
+        bean.setPathValue("manager.phones[0].countryCode", "44");
+        assertEquals("123", company.getManager().getPhones().get(0).getLocalNumber());
+        assertEquals("44", company.getManager().getPhones().get(0).getCountryCode());
+        assertEquals("456", company.getManager().getPhones().get(1).getLocalNumber());
+
+        // Replace a value along the prefix via setPathValue
+        Address address = new Address();
+        bean.setPathValue("manager.address", address);
+        bean.setPathValue("manager.address.line1", "1 High Street");
+        assertSame(address, company.getManager().getAddress());
+        assertEquals("1 High Street", address.getLine1());
+        assertNull(address.getCity());
+
+        Employee manager = new Employee();
+        bean.setPathValue("manager", manager);
+        bean.setPathValue("manager.address.city", "Paris");
+        assertSame(manager, company.getManager());
+        assertEquals("Paris", manager.getAddress().getCity());
+
+        // Replace a value along the prefix via setValue
+        Employee replacement = new Employee();
+        bean.setValue(company, "manager", replacement);
+        bean.setPathValue("manager.address.city", "Rome");
+        assertEquals("Rome", replacement.getAddress().getCity());
+        assertEquals("Paris", manager.getAddress().getCity());
+    }
+
+    @Test
+    public void testCursorWithClassOverrides() throws Exception {
+        Zoo zoo = new Zoo();
+        Bean bean = new BeanImpl(zoo);
+
+        bean.setPathValueClassName("animals[0]$", "testdomain.zoo.Dolphin");
+        bean.setPathValue("animals[0].nickname", "Claire");
+        bean.setPathValueClassName("animals[1]$", "testdomain.zoo.Penguin");
+        bean.setPathValue("animals[1].nickname", "Charles");
+        bean.setPathValue("animals[0].length", "20");
+
+        assertTrue(zoo.getAnimals().get(0) instanceof Dolphin);
+        assertTrue(zoo.getAnimals().get(1) instanceof Penguin);
+        assertEquals("Claire", zoo.getAnimals().get(0).getNickname());
+        assertEquals("Charles", zoo.getAnimals().get(1).getNickname());
+
+        // Replace the mascot, then override the class of its replacement
+        bean.setPathValueClassName("mascot$", "testdomain.zoo.Dolphin");
+        bean.setPathValue("mascot.nickname", "Flipper");
+        assertTrue(zoo.getMascot() instanceof Dolphin);
+        bean.setPathValue("mascot", null);
+        bean.setPathValueClassName("mascot$", "testdomain.zoo.Penguin");
+        bean.setPathValue("mascot.nickname", "Pingu");
+        assertTrue(zoo.getMascot() instanceof Penguin);
+        assertEquals("Pingu", zoo.getMascot().getNickname());
+    }
 }
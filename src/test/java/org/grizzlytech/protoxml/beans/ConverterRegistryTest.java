@@ -0,0 +1,101 @@
+package org.grizzlytech.protoxml.beans;
+
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConverterRegistryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Plugged in by src/test/resources/META-INF/services/org.grizzlytech.protoxml.beans.Converter
+     */
+    public static class StringToURIConverter implements Converter {
+        @Override
+        public Object convert(Object value, Class toClass) {
+            return URI.create((String) value);
+        }
+
+        @Override
+        public Class getFromClass() {
+            return String.class;
+        }
+
+        @Override
+        public Class getToClass() {
+            return URI.class;
+        }
+    }
+
+    @Test
+    public void registerAll() {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        assertNotNull(registry.findConverter("NOP"));
+        assertNotNull(registry.findConverter("ObjectToString"));
+        assertNotNull(registry.findConverter("StringToDate"));
+        assertNotNull(registry.findConverter("DateToDate"));
+        assertNotNull(registry.findConverter(String.class, Boolean.class));
+    }
+
+    @Test
+    public void registerAllSkipsBadServices() throws Exception {
+        assertNotNull(registerAll("no.such.Converter", StringToURIConverter.class.getName())
+                .findConverter(String.class, URI.class));
+        // A malformed services file stops the registration, rather than failing it
+        assertNotNull(registerAll("not a class name").findConverter("NOP"));
+    }
+
+    private ConverterRegistry registerAll(String... lines) throws Exception {
+        File servicesFile = new File(temporaryFolder.newFolder(),
+                "META-INF/services/" + Converter.class.getName());
+        assertTrue(servicesFile.getParentFile().mkdirs());
+        Files.write(servicesFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        File root = servicesFile.getParentFile().getParentFile().getParentFile();
+
+        ConverterRegistry registry = new ConverterRegistry();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()},
+                getClass().getClassLoader())) {
+            registry.registerAll(classLoader);
+        }
+        return registry;
+    }
+
+    @Test
+    public void registerPlugIn() {
+        Object uri = ConverterRegistry.getInstance().convert(URI.class, "urn:isbn:0451450523", "/uri");
+        assertEquals(URI.create("urn:isbn:0451450523"), uri);
+    }
+
+    @Test
+    public void findConverterIsCached() {
+        ConverterRegistry registry = new ConverterRegistry();
+        registry.register(new StringToURIConverter());
+
+        Converter converter = registry.findConverter(String.class, URI.class);
+        assertNotNull(converter);
+        assertSame(converter, registry.findConverter(String.class, URI.class));
+
+        // A missing converter is remembered, until a converter is registered
+        assertNull(registry.findConverter(String.class, Boolean.class));
+        assertNull(registry.findConverter(String.class, Boolean.class));
+        registry.register(ConverterRegistry.getInstance().findConverter(String.class, Boolean.class));
+        assertNotNull(registry.findConverter(String.class, Boolean.class));
+    }
+}
@@ -0,0 +1,78 @@
+package org.grizzlytech.protoxml.beans;
+
+
+import org.grizzlytech.protoxml.util.QualifiedPath;
+import org.junit.Test;
+import testdomain.company.Company;
+import testdomain.employee.Employee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathPlanTest {
+
+    @Test
+    public void route() throws Exception {
+        PathPlan.Route route = PathPlan.route(Employee.class, "phones[12].localNumber");
+        assertEquals("phones[].localNumber", route.getPlan().toString());
+        assertEquals(1, route.lastStep());
+        assertEquals("phones", route.getName(0));
+        assertEquals(12, route.getIndex(0));
+        assertEquals("localNumber", route.getName(1));
+        assertEquals(QualifiedPath.NO_INDEX, route.getIndex(1));
+        assertEquals("phones[12].localNumber", route.toString());
+        assertEquals(new PropertyPath("phones[12].localNumber"), route.toPropertyPath());
+        assertEquals(new PropertyPath("phones[12]"), route.toPropertyPath(0));
+
+        // Trailing delimiters are ignored, as per PropertyPath
+        assertEquals("address.city", PathPlan.route(Employee.class, "address.city.").getPlan().toString());
+    }
+
+    @Test
+    public void planIsSharedByShape() throws Exception {
+        PathPlan plan = PathPlan.route(Company.class, "manager.phones[0].localNumber").getPlan();
+        assertSame(plan, PathPlan.route(Company.class, "manager.phones[1].localNumber").getPlan());
+        assertSame(plan, PathPlan.route(Company.class, "manager.phones[25].localNumber").getPlan());
+        assertNotSame(plan, PathPlan.route(Employee.class, "manager.phones[0].localNumber").getPlan());
+        assertNotSame(plan, PathPlan.route(Company.class, "manager.phones[0].countryCode").getPlan());
+    }
+
+    @Test
+    public void plansAreBounded() throws Exception {
+        // Shapes taken from the input are not held without limit
+        for (int i = 0; i <= PathPlan.MAX_PLANS; i++) {
+            PathPlan.route(QualifiedPath.class, "misspelt" + i + ".name");
+        }
+        assertTrue(PathPlan.size(QualifiedPath.class) <= PathPlan.MAX_PLANS);
+
+        // Plans are compiled afresh once discarded
+        PathPlan plan = PathPlan.route(QualifiedPath.class, "misspelt0.name").getPlan();
+        assertSame(plan, PathPlan.route(QualifiedPath.class, "misspelt0.name").getPlan());
+    }
+
+    @Test
+    public void bind() throws Exception {
+        PathPlan plan = PathPlan.route(Company.class, "manager.name").getPlan();
+        Property manager = PropertyDictionary.getInstance().getProperty(Company.class, "manager");
+
+        plan.bind(0, Company.class, manager);
+        assertSame(manager, plan.getProperty(0, Company.class));
+        // A different class of host must be looked up afresh
+        assertNull(plan.getProperty(0, Employee.class));
+        assertNull(plan.getProperty(1, Company.class));
+    }
+
+    @Test
+    public void beanUsesRegisteredNames() throws Exception {
+        Bean bean = new BeanImpl(new Company());
+        assertEquals("manager.phones[0].localNumber",
+                bean.setPathValue("MANAGER.Phones[0].LOCALNUMBER", "999").getName());
+        assertEquals("999", bean.getPathValue("manager.phones[0].localNumber").getValue());
+        assertEquals("manager.phones[1].localNumber",
+                bean.setPathValue("MANAGER.Phones[1].LOCALNUMBER", "123").getName());
+        assertEquals("123", bean.getPathValue("manager.phones[1].localNumber").getValue());
+    }
+}
@@ -0,0 +1,115 @@
+package org.grizzlytech.protoxml.beans;
+
+
+import testdomain.company.Company;
+import testdomain.employee.Employee;
+
+/**
+ * Rough cost of the Property accessors (a getter is called for each step whilst walking a deep path to its host,
+ * then a setter), followed by the per-set cost of BeanImpl#setPathValue on deep paths end to end: firstly into a
+ * bean already holding the intermediate objects, then into a new bean (which must create them).
+ * <p>
+ * Not run as part of the build: java -cp target/classes:target/test-classes:... PropertyBenchmark [seconds]
+ */
+public class PropertyBenchmark {
+
+    private static final String[] PATHS = {
+            "manager.address.city", "manager.address.line1", "manager.phones[0].localNumber",
+            "manager.phones[1].localNumber", "manager.salary", "pet.colour"
+    };
+
+    private static final Object[] VALUES = {
+            "new york", "5th Avenue", "999", "123", 1234.5, "brown"
+    };
+
+    /**
+     * As NVP files are ordered, consecutive paths share long prefixes
+     */
+    private static final String[] ORDERED_PATHS = {
+            "manager.address.city", "manager.address.line1", "manager.address.line2", "manager.address.state",
+            "manager.phones[0].localNumber", "manager.phones[0].countryCode"
+    };
+
+    private static final Object[] ORDERED_VALUES = {
+            "new york", "5th Avenue", "Manhattan", "NY", "999", "1"
+    };
+
+    private static volatile Object sink;
+
+    private interface Task {
+        int run() throws Exception;
+    }
+
+    public static void main(String[] args)
+            throws Exception {
+        long millis = (args.length > 0) ? Long.parseLong(args[0]) * 1000 : 2000;
+
+        PropertyDictionary dictionary = PropertyDictionary.getInstance();
+        Property manager = dictionary.getProperty(Company.class, "manager");
+        Property name = dictionary.getProperty(Employee.class, "name");
+        Property salary = dictionary.getProperty(Employee.class, "salary");
+
+        Company company = new Company();
+        Employee employee = new Employee();
+        company.setManager(employee);
+        Double amount = 1234.5;
+
+        Bean populated = new BeanImpl(new Company());
+        for (int i = 0; i < PATHS.length; i++) {
+            populated.setPathValue(PATHS[i], VALUES[i]);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("Round " + (round + 1));
+            measure("get", millis, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    sink = manager.getValue(company);
+                }
+                return 1000;
+            });
+            measure("set", millis, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    name.setValue(employee, "bob");
+                }
+                return 1000;
+            });
+            measure("set double", millis, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    salary.setValue(employee, amount);
+                }
+                return 1000;
+            });
+            measure("bean", millis, () -> {
+                for (int i = 0; i < PATHS.length; i++) {
+                    sink = populated.setPathValue(PATHS[i], VALUES[i]);
+                }
+                return PATHS.length;
+            });
+            measure("ordered", millis, () -> {
+                for (int i = 0; i < ORDERED_PATHS.length; i++) {
+                    sink = populated.setPathValue(ORDERED_PATHS[i], ORDERED_VALUES[i]);
+                }
+                return ORDERED_PATHS.length;
+            });
+            measure("new bean", millis, () -> {
+                Bean bean = new BeanImpl(new Company());
+                for (int i = 0; i < PATHS.length; i++) {
+                    sink = bean.setPathValue(PATHS[i], VALUES[i]);
+                }
+                return PATHS.length;
+            });
+        }
+    }
+
+    private static void measure(String name, long millis, Task task)
+            throws Exception {
+        long count = 0;
+        long start = System.nanoTime();
+        long end = start + millis * 1_000_000;
+        while (System.nanoTime() < end) {
+            count += task.run();
+        }
+        double nanosPerSet = (double) (System.nanoTime() - start) / count;
+        System.out.println(String.format("  %-10s %8.1f ns/op", name, nanosPerSet));
+    }
+}
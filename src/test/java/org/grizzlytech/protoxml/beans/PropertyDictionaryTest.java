@@ -13,11 +13,18 @@ import testdomain.music.Album;
 import testdomain.zoo.Animal;
 
 import javax.xml.bind.JAXBElement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class PropertyDictionaryTest {
 
@@ -44,6 +51,51 @@ public class PropertyDictionaryTest {
                 {"#salary=double", "#address.line1=String", "#phones[0].countryCode=String"});
     }
 
+    @Test
+    public void caseInsensitiveLookup() throws Exception {
+        PropertyDictionary dict = PropertyDictionary.getInstance();
+
+        Property propCity = dict.getProperty(Address.class, "city");
+        assertNotNull(propCity);
+        assertSame(propCity, dict.getProperty(Address.class, "CITY"));
+        assertSame(propCity, dict.getProperty(Address.class, "City"));
+        assertSame(propCity, dict.getPropertyMap(Address.class).get(PropertyDictionary.toKey("city")));
+        assertNull(dict.getProperty(Address.class, "town"));
+        assertNull(dict.getProperty(Address.class, ""));
+
+        // Every thread sees the same Property instances
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Property>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> dict.getProperty(Employee.class, "salary")));
+            }
+            Property propSalary = dict.getProperty(Employee.class, "SALARY");
+            for (Future<Property> future : futures) {
+                assertSame(propSalary, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void propertyTable() {
+        Map<String, Property> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String name = "property" + i;
+            map.put(PropertyDictionary.toKey(name), new Property(name));
+        }
+        PropertyTable table = new PropertyTable(map);
+
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("property" + i, table.get("PROPERTY" + i).getName());
+        }
+        assertNull(table.get("property100"));
+        assertNull(new PropertyTable(new HashMap<>()).get("property"));
+    }
+
     @Test
     public void genericCases() {
         PropertyDictionary dict = PropertyDictionary.getInstance();
@@ -23,6 +23,9 @@ public class PropertyPathTest {
         PropertyPath p2 = new PropertyPath("APPLE.BANANA[2].PEAR[3].STRAWBERRY");
         //LOG.info("{} = {}", p1.getComparableValue(), p2.getComparableValue());
         assertTrue(p1.equals(p2));
+        assertEquals(p1.hashCode(), p2.hashCode());
+        assertEquals("APPLE.BANANA[002].PEAR[003].STRAWBERRY", p1.getComparableValue());
+        assertNotEquals(p1, new PropertyPath("apple.banana[2].pear[3]"));
     }
 
     @Test
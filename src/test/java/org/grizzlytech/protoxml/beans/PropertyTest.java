@@ -73,6 +73,47 @@ public class PropertyTest {
         prop.storeTypeInfo();
     }
 
+    @Test
+    public void accessorsTest() throws Exception {
+        Property prop = new Property("name");
+        prop.setGetter(Employee.class.getMethod("getName"));
+        prop.setSetter(Employee.class.getMethod("setName", String.class));
+        prop.storeTypeInfo();
+
+        Employee employee = new Employee();
+        prop.setValue(employee, "bob");
+        assertEquals("bob", employee.getName());
+        assertEquals("bob", prop.getValue(employee));
+
+        // Primitive setters widen their argument, as reflection does
+        Property salary = new Property("salary");
+        salary.setSetter(Employee.class.getMethod("setSalary", double.class));
+        salary.storeTypeInfo();
+        salary.setValue(employee, 1234);
+        assertTrue(employee.getSalary() == 1234.0);
+    }
+
+    @Test(expected = PropertyException.class)
+    public void accessorsWrongTypeTest() throws Exception {
+        Property prop = new Property("name");
+        prop.setSetter(Employee.class.getMethod("setName", String.class));
+        prop.storeTypeInfo();
+        prop.setValue(new Employee(), 1234);
+    }
+
+    @Test
+    public void fieldAccessTest() throws Exception {
+        // No getter, so the field is read directly
+        Property prop = new Property("name");
+        prop.setSetter(Employee.class.getMethod("setName", String.class));
+        prop.setField(Employee.class.getDeclaredField("name"));
+        prop.storeTypeInfo();
+
+        Employee employee = new Employee();
+        employee.setName("bob");
+        assertEquals("bob", prop.getValue(employee));
+    }
+
     public void setComplex(Map<String, Long> mapping) {
         LOG.info("Mapping entries:", mapping.size());
     }
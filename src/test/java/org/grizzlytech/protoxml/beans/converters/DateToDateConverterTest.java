@@ -29,8 +29,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.datatype.XMLGregorianCalendar;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -67,4 +70,20 @@ public class DateToDateConverterTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void toXMLGregorianCalendar() {
+        DateToDateConverter converter = new DateToDateConverter();
+
+        assertEquals("2017-01-02", toXML(converter, LocalDate.of(2017, 1, 2)));
+        assertEquals("-0045-03-15", toXML(converter, LocalDate.of(-44, 3, 15)));
+        assertEquals("2017-03-26T01:30:15.000",
+                toXML(converter, LocalDateTime.of(2017, 3, 26, 1, 30, 15, 123456789)));
+        assertEquals("2017-03-26T01:30:15.123+05:30", toXML(converter,
+                OffsetDateTime.of(2017, 3, 26, 1, 30, 15, 123456789, ZoneOffset.ofHoursMinutes(5, 30))));
+        assertEquals(CREATION_DATE_TIME, toXML(converter, Instant.parse(CREATION_DATE_TIME)));
+    }
+
+    private String toXML(DateToDateConverter converter, Object value) {
+        return ((XMLGregorianCalendar) converter.convert(value, XMLGregorianCalendar.class)).toXMLFormat();
+    }
+}
@@ -26,15 +26,56 @@ package org.grizzlytech.protoxml.builder;
 
 import org.grizzlytech.protoxml.beans.Bean;
 import org.grizzlytech.protoxml.beans.PropertyException;
+import org.grizzlytech.protoxml.builder.functions.Maths;
 import org.grizzlytech.protoxml.util.Common;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class PropertyFunctionTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(PropertyFunctionTest.class);
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Plugged in by src/test/resources/META-INF/services/org.grizzlytech.protoxml.builder.PropertyFunctionLibrary
+     */
+    public static class Library implements PropertyFunctionLibrary {
+        public static Object echo(Bean bean, String path, String[] args) {
+            return path + "=" + args[0];
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+    }
+
+    /**
+     * Plugged in only by the services files written by loadLibrariesSkipsBadServices
+     */
+    public static class OtherLibrary implements PropertyFunctionLibrary {
+        @Override
+        public String getName() {
+            return "other";
+        }
+    }
+
     public static Object helpMe(Bean bean, String path, String[] args)
             throws PropertyException {
         if ("bang".equals(args[0])) {
@@ -65,4 +106,34 @@ public class PropertyFunctionTest {
         LOG.info("Result: [{}] -> {}", syntax.toString(), result);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void createLibraryFunction() throws PropertyException {
+        assertEquals(Library.class, PropertyFunctionFactory.getLibraries().get("test"));
+        assertEquals(Maths.class, PropertyFunctionFactory.getLibraries().get("maths"));
+
+        PropertyFunction.Syntax syntax = PropertyFunction.Syntax.parseSyntax("!Test#Echo( a )");
+        PropertyFunction fn = PropertyFunctionFactory.createPropertyFunction(syntax.getFunctionName());
+        assertEquals("hello=a", fn.apply(null, "hello", syntax.getArguments()));
+    }
+
+    @Test
+    public void loadLibrariesSkipsBadServices() throws Exception {
+        assertEquals(OtherLibrary.class, loadLibraries("no.such.Library", OtherLibrary.class.getName())
+                .get("other"));
+        // A malformed services file stops the loading, rather than failing it
+        assertEquals(Maths.class, loadLibraries("not a class name").get("maths"));
+    }
+
+    private Map<String, Class> loadLibraries(String... lines) throws Exception {
+        File servicesFile = new File(temporaryFolder.newFolder(),
+                "META-INF/services/" + PropertyFunctionLibrary.class.getName());
+        assertTrue(servicesFile.getParentFile().mkdirs());
+        Files.write(servicesFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        File root = servicesFile.getParentFile().getParentFile().getParentFile();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()},
+                getClass().getClassLoader())) {
+            return PropertyFunctionFactory.loadLibraries(classLoader);
+        }
+    }
+}
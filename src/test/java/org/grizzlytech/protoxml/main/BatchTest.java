@@ -25,11 +25,30 @@
 package org.grizzlytech.protoxml.main;
 
 import org.grizzlytech.protoxml.util.TestPaths;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class BatchTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void run() {
 
@@ -42,4 +61,193 @@ public class BatchTest {
         Batch.main(new String[] { sourceDir, targetDir, extension} );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parseInteger() {
+        assertEquals(Integer.valueOf(4), Batch.parseInteger("4", 1));
+        assertEquals(Integer.valueOf(0), Batch.parseInteger("0", 0));
+        // Invalid values are reported through the usage, rather than a NumberFormatException
+        assertNull(Batch.parseInteger("0", 1));
+        assertNull(Batch.parseInteger("four", 1));
+        assertNull(Batch.parseInteger("", 1));
+    }
+
+    @Test
+    public void runParallel() {
+        File sourceDir = Paths.get(TestPaths.getTestResourcesDir().toString(), "examples").toFile();
+        File targetDir = Paths.get(TestPaths.getTestClassesDir().toString(), "examples").toFile();
+
+        Batch batch = new Batch(sourceDir, targetDir, (dir, name) -> name.endsWith(".txt"), 4);
+        batch.run();
+
+        // Results are reported in source file name order, one per source file
+        List<Batch.Result> results = batch.getResults();
+        String[] sourceNames = sourceDir.list((dir, name) -> name.endsWith(".txt"));
+        assertTrue(sourceNames != null);
+        assertEquals(sourceNames.length, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getSourceFile().getName()
+                    .compareTo(results.get(i).getSourceFile().getName()) < 0);
+        }
+        results.forEach(r -> assertTrue(r.toString(), r.isSuccess()));
+        results.forEach(r -> assertTrue(r.getTargetFile().exists()));
+    }
+
+    @Test
+    public void runWithReport() throws Exception {
+        File sourceDir = Paths.get(TestPaths.getTestResourcesDir().toString(), "examples").toFile();
+        File targetDir = temporaryFolder.newFolder("reported");
+
+        Batch batch = new Batch(sourceDir, targetDir, (dir, name) -> name.endsWith(".txt"), 2);
+        File jsonFile = new File(targetDir, "report.json");
+        batch.setReportFile(jsonFile);
+        batch.run();
+
+        BatchReport report = batch.getReport();
+        assertEquals(batch.getResults().size(), report.getBuilt() + report.getFailed());
+        assertTrue(report.getDocsPerSecond() > 0);
+        assertTrue(report.getPercentileNanos(BatchReport.TOTAL, 50) <= report.getPercentileNanos(BatchReport.TOTAL, 99));
+        assertTrue(report.getTotalNanos(StageTimings.Stage.MARSHAL.name()) > 0);
+        assertTrue(read(jsonFile).contains("\"docsPerSecond\""));
+        assertTrue(read(jsonFile).contains("\"VALIDATE\": {\"totalMs\""));
+        assertFalse(read(jsonFile).contains("MARSHAL_VALIDATE")); // only timed by single pass validation
+
+        File csvFile = new File(targetDir, "report.csv");
+        report.write(csvFile);
+        String[] rows = read(csvFile).split("\\r?\\n");
+        assertEquals(2, rows.length);
+        assertEquals(rows[0].split(",").length, rows[1].split(",").length);
+        assertTrue(rows[0].contains("TOTAL.p99Ms"));
+    }
+
+    @Test
+    public void runIncremental() throws Exception {
+        File sourceDir = temporaryFolder.newFolder("source");
+        File targetDir = temporaryFolder.newFolder("target");
+        File includeFile = write(new File(sourceDir, "includes/name.txt"), "NAME=BOB");
+        write(new File(sourceDir, "main.txt"), "doctype=testdomain.employee.Employee", "@include=includes/name.txt");
+        File otherFile = write(new File(sourceDir, "other.txt"), "doctype=testdomain.employee.Employee",
+                "NAME=JOE");
+
+        // First run builds everything, the second nothing
+        assertEquals(0, runIncremental(sourceDir, targetDir));
+        assertTrue(new File(targetDir, BuildManifest.MANIFEST_FILE_NAME).exists());
+        assertEquals(2, runIncremental(sourceDir, targetDir));
+
+        // Touching a file without changing it does not trigger a rebuild
+        assertTrue(otherFile.setLastModified(otherFile.lastModified() + 10_000));
+        assertEquals(2, runIncremental(sourceDir, targetDir));
+
+        // Changing an included file rebuilds only the source including it
+        write(includeFile, "NAME=ALICE");
+        assertTrue(includeFile.setLastModified(includeFile.lastModified() + 10_000));
+        assertEquals(1, runIncremental(sourceDir, targetDir));
+        String xmlText = read(new File(targetDir, "main.xml"));
+        assertTrue(xmlText, xmlText.contains("ALICE"));
+    }
+
+    @Test
+    public void watch() throws Exception {
+        File sourceDir = temporaryFolder.newFolder("watched");
+        File targetDir = temporaryFolder.newFolder("built");
+        File includeFile = write(new File(sourceDir, "includes/name.txt"), "NAME=BOB");
+        write(new File(sourceDir, "main.txt"), "doctype=testdomain.employee.Employee", "@include=includes/name.txt");
+        File targetFile = new File(targetDir, "main.xml");
+
+        Batch batch = new Batch(sourceDir, targetDir, (dir, name) -> name.endsWith(".txt"), 2);
+        Thread watching = new Thread(() -> {
+            try {
+                batch.watch();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        watching.start();
+        try {
+            assertTrue(waitFor(batch::isWatching));
+            assertTrue(read(targetFile).contains("BOB"));
+
+            // Changing an included file rebuilds the source including it
+            write(includeFile, "NAME=ALICE");
+            assertTrue(waitFor(() -> read(targetFile).contains("ALICE")));
+
+            // As does adding a new source
+            write(new File(sourceDir, "other.txt"), "doctype=testdomain.employee.Employee", "NAME=JOE");
+            assertTrue(waitFor(() -> read(new File(targetDir, "other.xml")).contains("JOE")));
+        } finally {
+            batch.stopWatching();
+            watching.join(10_000);
+        }
+        assertTrue(!watching.isAlive());
+    }
+
+    @Test
+    public void watchIncremental() throws Exception {
+        File sourceDir = temporaryFolder.newFolder("watchedIncremental");
+        File targetDir = temporaryFolder.newFolder("builtIncremental");
+        File includeFile = write(new File(sourceDir, "includes/name.txt"), "NAME=BOB");
+        write(new File(sourceDir, "main.txt"), "doctype=testdomain.employee.Employee", "@include=includes/name.txt");
+        File targetFile = new File(targetDir, "main.xml");
+
+        Batch batch = new Batch(sourceDir, targetDir, (dir, name) -> name.endsWith(".txt"), 2);
+        batch.setIncremental(true);
+        Thread watching = new Thread(() -> {
+            try {
+                batch.watch();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        watching.start();
+        try {
+            assertTrue(waitFor(batch::isWatching));
+            write(includeFile, "NAME=ALICE");
+            assertTrue(waitFor(() -> read(targetFile).contains("ALICE")));
+        } finally {
+            batch.stopWatching();
+            watching.join(10_000);
+        }
+        assertTrue(!watching.isAlive());
+
+        // The manifest records the included file as rebuilt, not as first seen
+        assertEquals(1, runIncremental(sourceDir, targetDir));
+
+        // So restoring its earlier content is a change
+        write(includeFile, "NAME=BOB");
+        assertEquals(0, runIncremental(sourceDir, targetDir));
+        assertTrue(read(targetFile).contains("BOB"));
+    }
+
+    private boolean waitFor(BooleanSupplier condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    private String read(File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            return "";
+        }
+    }
+
+    // Returns the number of up to date (skipped) sources
+    private long runIncremental(File sourceDir, File targetDir) {
+        Batch batch = new Batch(sourceDir, targetDir, (dir, name) -> name.endsWith(".txt"), 2);
+        batch.setIncremental(true);
+        batch.run();
+        batch.getResults().forEach(r -> assertTrue(r.toString(), r.isSuccess()));
+        return batch.getResults().stream().filter(Batch.Result::isSkipped).count();
+    }
+
+    private File write(File file, String... lines) throws Exception {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -2,14 +2,35 @@ package org.grizzlytech.protoxml.main;
 
 
 import org.grizzlytech.protoxml.util.TestPaths;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.grizzlytech.protoxml.xml.ElementList;
+import testdomain.TestElementList;
+import testdomain.employee.Employee;
+import testdomain.example.ExampleBean;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class MainTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void main() throws Exception {
 
@@ -38,4 +59,88 @@ public class MainTest {
         assertTrue(traceFile.exists());
         assertTrue(validationFile.exists());
     }
+
+    @Test
+    public void singlePassValidation() throws Exception {
+        // The library name and the album title are required by the schema
+        File inputFile = temporaryFolder.newFile("music-invalid.txt");
+        Files.write(inputFile.toPath(), Arrays.asList(
+                "doctype=testdomain.music.Library",
+                "format[0]&=testdomain.music.ObjectFactory#createCD",
+                "format[0]$=testdomain.music.Album",
+                "format[0].value.artist=foo"), StandardCharsets.UTF_8);
+        File singlePassFile = new File(temporaryFolder.getRoot(), "music-single.xml");
+        File twoPassFile = new File(temporaryFolder.getRoot(), "music-double.xml");
+
+        ProtoAPI api = new ProtoAPI();
+        assertFalse(api.getConfig().singlePassValidation()); // opt-in
+        StageTimings twoPassTimings = new StageTimings();
+        api.createAndValidateXMLFile(inputFile, twoPassFile, twoPassTimings);
+        api.getConfig().singlePassValidation(true);
+        StageTimings singlePassTimings = new StageTimings();
+        api.createAndValidateXMLFile(inputFile, singlePassFile, singlePassTimings);
+        assertTrue(singlePassFile.exists());
+
+        // Marshalling and validation can only be timed apart in two passes
+        assertTrue(twoPassTimings.isRecorded(StageTimings.Stage.MARSHAL));
+        assertTrue(twoPassTimings.isRecorded(StageTimings.Stage.VALIDATE));
+        assertFalse(twoPassTimings.isRecorded(StageTimings.Stage.MARSHAL_VALIDATE));
+        assertFalse(singlePassTimings.isRecorded(StageTimings.Stage.MARSHAL));
+        assertFalse(singlePassTimings.isRecorded(StageTimings.Stage.VALIDATE));
+        assertTrue(singlePassTimings.isRecorded(StageTimings.Stage.MARSHAL_VALIDATE));
+
+        String[] twoPass = readAll(new File(twoPassFile.getAbsolutePath() + ".val")).split("\\r?\\n");
+        String[] singlePass = readAll(new File(singlePassFile.getAbsolutePath() + ".val")).split("\\r?\\n");
+
+        // Both routes report the same summary and messages...
+        assertTrue(twoPass[0], twoPass[0].matches("Summary: Fatal \\(0\\) Error \\([1-9]\\d*\\) Warning \\(0\\)"));
+        assertEquals(twoPass[0], singlePass[0]);
+        assertEquals(twoPass.length, singlePass.length);
+        for (int i = 1; i < twoPass.length; i++) {
+            // ...but only the two pass route knows the line and column of each
+            String position = "^Line \\d+ \\(\\d+\\): ";
+            assertTrue(twoPass[i], twoPass[i].matches(position + ".+"));
+            assertFalse(singlePass[i], singlePass[i].startsWith("Line "));
+            assertEquals(twoPass[i].replaceFirst(position, ""), singlePass[i]);
+        }
+    }
+
+    @Test
+    public void findElementListByScanning() {
+        // The classpath scan remains as the fallback for elements missing from the index
+        ProtoAPI api = new ProtoAPI();
+        assertTrue(api.findElementList(Employee.class, Employee.class.getPackage().getName())
+                instanceof TestElementList);
+    }
+
+    @Test
+    public void elementListNotFoundIsRemembered() throws Exception {
+        ProtoAPI api = new ProtoAPI();
+
+        // Concurrent lookups share a single search
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ElementList>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> api.getElementList(ExampleBean.class)));
+            }
+            for (Future<ElementList> future : futures) {
+                assertNull(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // Its package, and then the whole classpath (once), rather than each parent package in turn
+        assertEquals(2, api.getScannedPackageCount());
+
+        // The missing ElementList is remembered, and packages within the scans are not scanned again
+        assertNull(api.getElementList(ExampleBean.class));
+        assertTrue(api.findElementList(Employee.class, Employee.class.getPackage().getName())
+                instanceof TestElementList);
+        assertEquals(2, api.getScannedPackageCount());
+    }
+
+    private static String readAll(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
 }
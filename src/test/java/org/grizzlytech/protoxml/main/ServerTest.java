@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.main;
+
+
+import org.grizzlytech.protoxml.util.AssertUtil;
+import org.grizzlytech.protoxml.util.TestPaths;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class ServerTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServerTest.class);
+
+    @Test
+    public void postXML() throws Exception {
+        byte[] nvpContent = Files.readAllBytes(Paths.get(TestPaths.getTestResourcesDir().getAbsolutePath(),
+                "examples", "employee-01.txt"));
+
+        Server server = new Server(0, 2);
+        int port = server.start();
+        try {
+            // Repeat requests reuse the warm ProtoAPI
+            for (int i = 0; i < 2; i++) {
+                HttpURLConnection connection = post(port, Server.XML_PATH, nvpContent);
+                assertEquals(200, connection.getResponseCode());
+                assertNotNull(connection.getHeaderField(Server.VALIDATION_SUMMARY_HEADER));
+
+                String xmlText = read(connection.getInputStream());
+                LOG.info(xmlText);
+                AssertUtil.assertContains(LOG, xmlText, new String[]{"<!--Home-->", "New York"});
+            }
+
+            HttpURLConnection connection = post(port, Server.XML_PATH,
+                    "doctype=no.such.Doctype".getBytes(StandardCharsets.UTF_8));
+            assertEquals(400, connection.getResponseCode());
+
+            String status = read(new URL("http", "localhost", port, Server.STATUS_PATH).openStream());
+            AssertUtil.assertContains(LOG, status, new String[]{"Requests (3) Failed (1)"});
+        } finally {
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection post(int port, String path, byte[] body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(body);
+        }
+        return connection;
+    }
+
+    private String read(InputStream inputStream) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = inputStream) {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, count);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package org.grizzlytech.protoxml.main;
+
+
+import org.grizzlytech.protoxml.beans.PropertyDictionary;
+import com.sun.xml.internal.bind.marshaller.NamespacePrefixMapper;
+import org.grizzlytech.protoxml.xml.ElementList;
+import org.grizzlytech.protoxml.xml.ElementMetadata;
+import org.grizzlytech.protoxml.xml.SchemaCache;
+import org.junit.Test;
+import org.w3c.dom.ls.LSResourceResolver;
+import testdomain.employee.Employee;
+
+import javax.xml.bind.annotation.XmlType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WarmUpTest {
+
+    @Test
+    public void run() throws Exception {
+        ProtoAPI api = new ProtoAPI();
+        List<WarmUp.Cost> costs = new WarmUp(4).run(api);
+
+        int doctypes = api.getRegisteredElementLists().stream().mapToInt(e -> e.getElements().size()).sum();
+        assertEquals(doctypes, costs.size());
+        assertTrue(costs.stream().allMatch(WarmUp.Cost::isSuccess));
+        assertTrue(costs.stream().anyMatch(c -> c.getElementClass().equals(Employee.class)));
+        // Each reachable class is introspected once, by one of the doctypes
+        assertTrue(costs.stream().mapToInt(WarmUp.Cost::getClassCount).sum() >= doctypes);
+
+        // The first document of a doctype now finds the schema compiled
+        ElementList elementList = api.getElementList(Employee.class);
+        long misses = SchemaCache.getInstance().getMissCount();
+        SchemaCache.getInstance().getSchema(api.getSchemaURL(Employee.class), elementList.getResourceResolver());
+        assertEquals(misses, SchemaCache.getInstance().getMissCount());
+        assertTrue(PropertyDictionary.getInstance().getPropertyMap(Employee.class).size() > 0);
+    }
+
+    @Test
+    public void introspectionFailureIsRecorded() {
+        // Introspecting an XmlType requires an ObjectFactory in its package, which this one lacks
+        ElementList elementList = new ElementList() {
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public List<ElementMetadata> getElements() {
+                return Arrays.asList(new ElementMetadata(Orphan.class, null, null),
+                        new ElementMetadata(Employee.class, null, null));
+            }
+
+            @Override
+            public LSResourceResolver getResourceResolver() {
+                return null;
+            }
+
+            @Override
+            public NamespacePrefixMapper getNamespacePrefixMapper() {
+                return null;
+            }
+        };
+
+        List<WarmUp.Cost> costs = new WarmUp(2).run(Collections.singletonList(elementList));
+        assertEquals(2, costs.size());
+        assertFalse(costs.get(0).isSuccess());
+        assertTrue(costs.get(1).isSuccess());
+    }
+
+    @XmlType
+    public static class Orphan {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
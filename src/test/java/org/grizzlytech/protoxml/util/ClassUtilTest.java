@@ -8,9 +8,15 @@ import org.grizzlytech.protoxml.util.testclasses.Foo;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
+import org.slf4j.impl.SimpleLogger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class ClassUtilTest {
@@ -47,4 +53,35 @@ public class ClassUtilTest {
         assertTrue(classes.contains(ConcreteFoo.class));
     }
 
+    @Test
+    public void getImplementationsInJars() {
+        // SimpleLogger (slf4j-simple) extends MarkerIgnoringBase (slf4j-api), which implements Logger
+        List<Class> classes = ClassUtil.getImplementations("org.slf4j", x -> x.contains("Logger"), Logger.class);
+        assertTrue(classes.contains(SimpleLogger.class));
+        assertTrue(classes.contains(NOPLogger.class));
+        assertTrue(!classes.contains(Logger.class));
+        assertTrue(!classes.contains(LoggerFactory.class));
+
+        // The headers read from each jar are reused
+        int cached = ClassUtil.getJarHeaderCacheSize();
+        assertTrue(cached > 0);
+        assertEquals(classes, ClassUtil.getImplementations("org.slf4j", x -> x.contains("Logger"), Logger.class));
+        assertEquals(cached, ClassUtil.getJarHeaderCacheSize());
+    }
+
+    @Test
+    public void readClassFileHeader() throws IOException {
+        try (InputStream in = ConcreteFoo.class.getResourceAsStream("ConcreteFoo.class")) {
+            ClassFileHeader header = ClassFileHeader.read(in);
+            assertEquals(ConcreteFoo.class.getName(), header.getClassName());
+            assertEquals(AbstractFoo.class.getName(), header.getSuperClassName());
+            assertEquals(Collections.singletonList(Bar.class.getName()), header.getInterfaceNames());
+            assertTrue(!header.isAbstract());
+        }
+        try (InputStream in = Foo.class.getResourceAsStream("Foo.class")) {
+            ClassFileHeader header = ClassFileHeader.read(in);
+            assertTrue(header.isInterface());
+            assertTrue(header.isAbstract());
+        }
+    }
 }
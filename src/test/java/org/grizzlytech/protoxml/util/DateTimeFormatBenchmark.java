@@ -0,0 +1,80 @@
+package org.grizzlytech.protoxml.util;
+
+
+import java.lang.reflect.Method;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.util.stream.Collectors;
+
+/**
+ * Rough throughput comparison of DateTimeFormat.parse against the original implementation (stream based mask,
+ * reflective from), with and without the per-thread cache of parsed literals.
+ * <p>
+ * Not run as part of the build: java -cp target/classes:target/test-classes:... DateTimeFormatBenchmark [seconds]
+ */
+public class DateTimeFormatBenchmark {
+
+    private static final String[] LITERALS = {
+            "20170315", "2017-03-15", "2017-03-15T10:30:45", "2017-03-15T10:30:45+05:00",
+            "2017-03-15T10:30:45Z", "2017-03-15T10:30:45.123Z", "2016-12-31", "2017-01-01T00:00:00"
+    };
+
+    private static final ClassValue<Method> FROM_METHODS = new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getDeclaredMethod("from", TemporalAccessor.class);
+            } catch (NoSuchMethodException ex) {
+                throw new IllegalArgumentException(ex);
+            }
+        }
+    };
+
+    private static volatile Object sink;
+
+    public static void main(String[] args)
+            throws Exception {
+        long millis = (args.length > 0) ? Long.parseLong(args[0]) * 1000 : 2000;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println("Round " + (round + 1));
+            measure("original", millis, DateTimeFormatBenchmark::parseOriginal);
+            DateTimeFormat.setCacheSize(0);
+            measure("uncached", millis, DateTimeFormat::parse);
+            DateTimeFormat.setCacheSize(DateTimeFormat.DEFAULT_CACHE_SIZE);
+            measure("cached", millis, DateTimeFormat::parse);
+        }
+    }
+
+    private interface Parser {
+        Object parse(String value) throws Exception;
+    }
+
+    private static void measure(String name, long millis, Parser parser)
+            throws Exception {
+        long count = 0;
+        long start = System.nanoTime();
+        long end = start + millis * 1_000_000;
+        while (System.nanoTime() < end) {
+            for (String literal : LITERALS) {
+                sink = parser.parse(literal);
+            }
+            count += LITERALS.length;
+        }
+        double nanosPerOp = (double) (System.nanoTime() - start) / count;
+        System.out.println(String.format("  %-10s %8.1f ns/op", name, nanosPerOp));
+    }
+
+    private static Temporal parseOriginal(String value)
+            throws Exception {
+        String masked = value.chars().mapToObj(c -> (char) c)
+                .map(c -> ((c == '+') ? '-' : c))
+                .map(c -> "YMDhmsu".indexOf(c) >= 0 || Character.isDigit(c) ? "n" : String.valueOf(c))
+                .collect(Collectors.joining());
+        DateTimeFormat dtf = DateTimeFormat.getFormat(masked); // masking a mask returns it unchanged
+        DateTimeFormatter formatter = dtf.getDateTimeFormatter();
+        TemporalAccessor accessor = formatter.parse(value);
+        return (Temporal) FROM_METHODS.get(dtf.getTemporalClass()).invoke(null, accessor);
+    }
+}
@@ -0,0 +1,50 @@
+package org.grizzlytech.protoxml.util;
+
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.*;
+import java.time.temporal.Temporal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DateTimeFormatTest {
+
+    @After
+    public void resetCacheSize() {
+        DateTimeFormat.setCacheSize(DateTimeFormat.DEFAULT_CACHE_SIZE);
+    }
+
+    @Test
+    public void parse() {
+        assertEquals(LocalDate.of(2017, 3, 15), DateTimeFormat.parse("20170315"));
+        assertEquals(LocalDate.of(2017, 3, 15), DateTimeFormat.parse("2017-03-15"));
+        assertEquals(LocalDateTime.of(2017, 3, 15, 10, 30, 45), DateTimeFormat.parse("2017-03-15T10:30:45"));
+        assertEquals(OffsetDateTime.of(2017, 3, 15, 10, 30, 45, 0, ZoneOffset.ofHours(5)),
+                DateTimeFormat.parse("2017-03-15T10:30:45+05:00"));
+        assertEquals(Instant.parse("2017-03-15T10:30:45Z"), DateTimeFormat.parse("2017-03-15T10:30:45Z"));
+    }
+
+    @Test
+    public void parseIsCached() {
+        Temporal first = DateTimeFormat.parse("2017-03-15T10:30:45Z");
+        assertSame(first, DateTimeFormat.parse("2017-03-15T10:30:45Z"));
+
+        DateTimeFormat.setCacheSize(0);
+        Temporal uncached = DateTimeFormat.parse("2017-03-15T10:30:45Z");
+        assertEquals(first, uncached);
+        assertEquals(uncached, DateTimeFormat.parse("2017-03-15T10:30:45Z"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownFormat() {
+        DateTimeFormat.parse("15/03/2017");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidDate() {
+        DateTimeFormat.parse("2017-02-30");
+    }
+}
@@ -49,4 +49,50 @@ public class QualifiedPathTest {
         assertEquals(s, p.getPath());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parseMatchesSplit() {
+        String[] paths = {"apple", "", "apple.", "apple..", ".apple", "apple..pear", "a[1]b.c]d[", "a.b[01][2]",
+                "apple.banana[1234567890]"};
+        for (String t : paths) {
+            QualifiedPath scanned = new QualifiedPath(t);
+            QualifiedPath split = new QualifiedPath(t, "[.]");
+            assertEquals(t, split.getPath(), scanned.getPath());
+            assertEquals(t, split, scanned);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void badIndex() {
+        new QualifiedPath("apple.banana[x]");
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        QualifiedPath p = new QualifiedPath("apple.banana[2]");
+        QualifiedPath q = new QualifiedPath("apple.Banana[2]");
+        assertNotEquals(p, q); // case sensitive
+        assertNotEquals(p, new QualifiedPath("apple.banana"));
+
+        q.setName(1, "banana");
+        assertEquals(p, q);
+        assertEquals(p.hashCode(), q.hashCode());
+        assertSame(p.getPathName(1), q.getPathName(1));
+
+        int hash = q.hashCode();
+        q.setIndex(1, 3);
+        assertNotEquals(hash, q.hashCode());
+        assertNotEquals(p, q);
+    }
+
+    @Test
+    public void pathName() {
+        String t = "xapplex";
+        PathName name = PathName.of(t, 1, 6);
+        assertEquals("apple", name.getName());
+        assertEquals("APPLE", name.getFolded());
+        assertSame(name, PathName.of("apple"));
+        assertTrue(name.matches(PathName.of("APPLE"), false));
+        assertFalse(name.matches(PathName.of("APPLE"), true));
+        assertNull(PathName.of(null));
+    }
+}
@@ -0,0 +1,43 @@
+package org.grizzlytech.protoxml.util;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResourceIndexTest {
+
+    private final ResourceIndex index = new ResourceIndex(Arrays.asList(
+            "schema/company.xsd",
+            "schema/generated/employee.xsd",
+            "schema\\other\\employee.xsd",
+            "schema/head/head.001.001.01.AppHdr.xsd"));
+
+    @Test
+    public void getPathByFilename() {
+        assertEquals("schema/company.xsd", index.getPath("company.xsd"));
+        assertEquals("schema/company.xsd", index.getPath("COMPANY.XSD"));
+        // A file name which is not unique is ambiguous
+        assertNull(index.getPath("employee.xsd"));
+    }
+
+    @Test
+    public void getPathByQualifiedName() {
+        assertEquals("schema/generated/employee.xsd", index.getPath("generated/employee.xsd"));
+        assertEquals("schema\\other\\employee.xsd", index.getPath("other/employee.xsd"));
+        assertEquals("schema\\other\\employee.xsd", index.getPath("schema\\other\\employee.xsd"));
+    }
+
+    @Test
+    public void getPathByFragment() {
+        assertEquals("schema/head/head.001.001.01.AppHdr.xsd", index.getPath("AppHdr"));
+        assertNull(index.getPath("missing.xsd"));
+        assertNull(index.getPath("missing.xsd"));
+        // Only a fragment matching a single path is resolved
+        assertNull(index.getPath("schema"));
+        assertEquals("schema/company.xsd", index.getPath("company"));
+    }
+}
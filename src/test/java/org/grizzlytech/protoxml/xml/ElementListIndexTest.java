@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.grizzlytech.protoxml.main.ProtoAPI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testdomain.TestElementList;
+import testdomain.employee.Employee;
+import testdomain.zoo.Zoo;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ElementListIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void load() {
+        ElementListIndex index = ElementListIndex.load(Thread.currentThread().getContextClassLoader());
+
+        assertEquals(TestElementList.class.getName(), index.findElementListClassName(Employee.class));
+        assertNull(index.findElementListClassName(String.class));
+    }
+
+    @Test
+    public void getElementList() {
+        ProtoAPI api = new ProtoAPI();
+
+        // Found via the index, and shared by all the elements it registers
+        ElementList elementList = api.getElementList(Employee.class);
+        assertTrue(elementList instanceof TestElementList);
+        assertSame(elementList, api.getElementList(Zoo.class));
+    }
+
+    @Test
+    public void write() throws Exception {
+        File indexFile = ElementListIndex.write("testdomain", temporaryFolder.getRoot());
+
+        // The index generated by the build must be up to date
+        File expected = new File(Thread.currentThread().getContextClassLoader()
+                .getResource(ElementListIndex.INDEX_RESOURCE).toURI());
+        assertEquals(new String(Files.readAllBytes(expected.toPath()), "UTF-8"),
+                new String(Files.readAllBytes(indexFile.toPath()), "UTF-8"));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2017, GrizzlyTech.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.grizzlytech.protoxml.xml;
+
+
+import org.grizzlytech.protoxml.main.ProtoAPI;
+import org.junit.Test;
+import testdomain.employee.Employee;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SchemaCacheTest {
+
+    @Test
+    public void getSchema() throws Exception {
+        ProtoAPI api = new ProtoAPI();
+        ElementList elementList = api.getElementList(Employee.class);
+        URL schemaURL = api.getSchemaURL(Employee.class);
+
+        SchemaCache cache = new SchemaCache();
+        Schema first = cache.getSchema(schemaURL, elementList.getResourceResolver());
+        // A new resolver over the same resources must hit the cache
+        Schema second = cache.getSchema(schemaURL, elementList.getResourceResolver());
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void getValidator() throws Exception {
+        ProtoAPI api = new ProtoAPI();
+        ElementList elementList = api.getElementList(Employee.class);
+        URL schemaURL = api.getSchemaURL(Employee.class);
+
+        SchemaCache cache = new SchemaCache();
+        Validator validator = cache.getValidator(schemaURL, elementList.getResourceResolver());
+
+        // Validators are reused on the same thread, but not shared across threads
+        assertSame(validator, cache.getValidator(schemaURL, elementList.getResourceResolver()));
+
+        Validator[] other = new Validator[1];
+        Thread thread = new Thread(() -> {
+            try {
+                other[0] = cache.getValidator(schemaURL, elementList.getResourceResolver());
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(validator, other[0]);
+    }
+}
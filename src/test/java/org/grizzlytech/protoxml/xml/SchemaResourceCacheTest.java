@@ -0,0 +1,75 @@
+package org.grizzlytech.protoxml.xml;
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaResourceCacheTest {
+
+    private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+    @Test
+    public void getContents() throws Exception {
+        SchemaResourceCache cache = new SchemaResourceCache(SchemaResourceCache.DEFAULT_MAX_BYTES);
+
+        ByteBuffer first = cache.getContents("schema/books.xsd", classLoader);
+        ByteBuffer second = cache.getContents("schema/books.xsd", classLoader);
+
+        assertTrue(first.isReadOnly());
+        assertEquals(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(first.capacity(), cache.getTotalBytes());
+
+        try (InputStream in = classLoader.getResourceAsStream("schema/books.xsd")) {
+            assertEquals(ByteBuffer.wrap(SchemaResourceCache.readFully(in)), first);
+        }
+
+        assertNull(cache.getContents("schema/missing.xsd", classLoader));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        long books = new SchemaResourceCache(Long.MAX_VALUE).getContents("schema/books.xsd", classLoader).capacity();
+        long music = new SchemaResourceCache(Long.MAX_VALUE).getContents("schema/music.xsd", classLoader).capacity();
+        SchemaResourceCache cache = new SchemaResourceCache(Math.max(books, music));
+
+        cache.getContents("schema/books.xsd", classLoader);
+        cache.getContents("schema/music.xsd", classLoader);
+        assertEquals(1, cache.size());
+        assertEquals(music, cache.getTotalBytes());
+
+        // Contents larger than the cache are returned, but not cached
+        SchemaResourceCache tiny = new SchemaResourceCache(1);
+        assertEquals(books, tiny.getContents("schema/books.xsd", classLoader).capacity());
+        assertEquals(0, tiny.size());
+    }
+
+    @Test
+    public void inputReadsEntireStream() throws Exception {
+        byte[] text = new byte[100_000];
+        Arrays.fill(text, (byte) 'x');
+        // A stream which reports nothing available, as may an inflating (jar) stream
+        InputStream stream = new ByteArrayInputStream(text) {
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+
+        Input input = new Input(null, "big.xsd", stream);
+        assertEquals(new String(text, StandardCharsets.US_ASCII), input.getStringData());
+        // Each byte stream starts from the beginning
+        assertEquals(text.length, SchemaResourceCache.readFully(input.getByteStream()).length);
+        assertEquals(text.length, SchemaResourceCache.readFully(input.getByteStream()).length);
+    }
+}
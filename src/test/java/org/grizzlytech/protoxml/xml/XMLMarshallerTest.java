@@ -35,12 +35,23 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class XMLMarshallerTest {
@@ -91,6 +102,35 @@ public class XMLMarshallerTest {
         LOG.info("Validate: {}", valWriter.toString());
     }
 
+    @Test
+    public void contextAndMarshallerReuse() throws Exception {
+        Bean bean = (new BeanTest()).createEmployeeBean();
+        Object rootElement = bean.unwrap();
+
+        assertSame(XMLMarshaller.getContext(rootElement.getClass()), XMLMarshaller.getContext(rootElement.getClass()));
+
+        // A reused marshaller must produce the same document (ignoring the generated-at header)
+        XMLMarshaller marshaller = new XMLMarshaller();
+        String first = marshaller.toXML(rootElement);
+        String second = marshaller.toXML(rootElement);
+        assertEquals(first.substring(first.indexOf("-->")), second.substring(second.indexOf("-->")));
+    }
+
+    @Test
+    public void toXMLToStream() throws Exception {
+        Bean bean = (new BeanTest()).createEmployeeBean();
+        Object rootElement = bean.unwrap();
+
+        // Streaming to bytes must honour the encoding declared in the XML header
+        XMLMarshaller marshaller = new XMLMarshaller();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(marshaller.toXML(rootElement, outputStream));
+        String xmlText = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+
+        LOG.info(xmlText);
+        AssertUtil.assertContains(LOG, xmlText, new String[]{"encoding=\"UTF-8\"", "city>new york"});
+    }
+
     @Test
     public void toXMLWithComments() throws Exception {
         Bean bean = (new BeanTest()).createEmployeeBean();
@@ -116,6 +156,23 @@ public class XMLMarshallerTest {
         );
     }
 
+    @Test
+    public void toXMLWithCommentsUnused() throws Exception {
+        Bean bean = (new BeanTest()).createEmployeeBean();
+
+        Map<XMLPath, String> comments = new HashMap<>();
+        comments.put(new XMLPath("address/city"), "home city");
+        comments.put(new XMLPath("phones[1]"), "no second phone");
+
+        String xmlText = (new XMLMarshaller()).toXMLWithComments(bean.unwrap(), comments);
+        LOG.info(xmlText);
+
+        // Placed comments are consumed, leaving only those without a matching element
+        AssertUtil.assertContains(LOG, xmlText, new String[]{"<!--home city-->"});
+        assertEquals(1, comments.size());
+        assertTrue(comments.containsKey(new XMLPath("phones[1]")));
+    }
+
     @Test
     public void toXMLWithCommentsComplexCases() throws Exception {
         NVPStringReader reader = new NVPStringReader();
@@ -161,4 +218,67 @@ public class XMLMarshallerTest {
 
         LOG.info("{}", xmlText);
     }
+
+    @Test
+    public void validateWhileMarshalling() throws Exception {
+        Bean bean = (new BeanTest()).createEmployeeBean();
+        Object rootElement = bean.unwrap();
+
+        // The employee schema, with the city restricted to 3 characters
+        String ns = "http://www.grizzlytech.org/testdomain/employee";
+        String xsd = "<xs:schema elementFormDefault='qualified' targetNamespace='" + ns + "' xmlns:tns='" + ns +
+                "' xmlns:xs='http://www.w3.org/2001/XMLSchema'>" +
+                "<xs:element name='employee' type='tns:employee'/>" +
+                "<xs:complexType name='employee'><xs:sequence>" +
+                "<xs:element name='name' type='xs:string' minOccurs='0'/>" +
+                "<xs:element name='salary' type='xs:double'/>" +
+                "<xs:element name='designation' type='xs:string' minOccurs='0'/>" +
+                "<xs:element name='address' type='tns:address' minOccurs='0'/>" +
+                "<xs:element name='phones' type='xs:anyType' minOccurs='0' maxOccurs='unbounded'/>" +
+                "</xs:sequence><xs:attribute name='id' type='xs:int' use='required'/></xs:complexType>" +
+                "<xs:complexType name='address'><xs:sequence>" +
+                "<xs:element name='city' minOccurs='0'><xs:simpleType><xs:restriction base='xs:string'>" +
+                "<xs:maxLength value='3'/></xs:restriction></xs:simpleType></xs:element>" +
+                "<xs:element name='line1' type='xs:string' minOccurs='0'/>" +
+                "<xs:element name='line2' type='xs:string' minOccurs='0'/>" +
+                "<xs:element name='state' type='xs:string' minOccurs='0'/>" +
+                "<xs:element name='zipcode' type='xs:long'/>" +
+                "</xs:sequence></xs:complexType></xs:schema>";
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new StreamSource(new StringReader(xsd)));
+
+        // Validated as marshalled, the whole document is still written
+        XMLMarshaller marshaller = new XMLMarshaller();
+        AccumulatorErrorHandler handler = new AccumulatorErrorHandler();
+        marshaller.setValidation(schema, handler);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(marshaller.toXML(rootElement, outputStream));
+        LOG.info("Validate: {}", handler);
+
+        // The same errors are reported when validating the written document
+        AccumulatorErrorHandler parsed = new AccumulatorErrorHandler();
+        javax.xml.validation.Validator validator = schema.newValidator();
+        validator.setErrorHandler(parsed);
+        validator.validate(new StreamSource(new ByteArrayInputStream(outputStream.toByteArray())));
+        assertTrue(parsed.toString().startsWith("Summary: Fatal (0) Error (2)"));
+        assertEquals(summary(parsed), summary(handler));
+
+        // With comments
+        Map<XMLPath, String> comments = new HashMap<>();
+        comments.put(new XMLPath("address/city"), "home city");
+        AccumulatorErrorHandler commented = new AccumulatorErrorHandler();
+        marshaller.setValidation(schema, commented);
+        assertTrue(marshaller.toXMLWithComments(rootElement, comments, new ByteArrayOutputStream()));
+        assertEquals(summary(parsed), summary(commented));
+
+        // Once the schema is removed, the (reused) marshaller no longer validates
+        marshaller.setValidation(null, null);
+        assertTrue(marshaller.toXML(rootElement, new ByteArrayOutputStream()));
+        assertEquals(summary(parsed), summary(handler));
+    }
+
+    private static String summary(AccumulatorErrorHandler handler) {
+        String text = handler.toString();
+        return text.substring(0, text.indexOf('\n'));
+    }
 }
@@ -42,5 +42,7 @@ public class XMLPathTest {
         xpath2.setIndex(1,2);
         LOG.info("{}, {}", xpath2.toString(), xpath2.computeComparableValue());
         assertEquals(xpath1, xpath2);
+        assertEquals(xpath1.hashCode(), xpath2.hashCode());
+        assertEquals(xpath1.getComparableValue(), xpath2.getComparableValue());
     }
 }
\ No newline at end of file